@@ -0,0 +1,250 @@
+package com.multithreading.practice;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Пул ресурсов с адаптивным лимитом одновременных доступов.
+ *
+ * В отличие от ResourcePool, лимит не фиксирован при создании: пул измеряет
+ * время от acquire() до release() и после каждого замера пересчитывает
+ * лимит выбранным алгоритмом (AIMD или градиентным) в пределах [minLimit, maxLimit].
+ * Когда нижестоящий сервис замедляется, лимит уменьшается и лишние
+ * запросы ждут здесь, а не в очереди сервиса.
+ */
+public class AdaptiveResourcePool {
+    private final LimitAlgorithm algorithm;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveResourcePool(LimitAlgorithm algorithm, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Нужно 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        this.algorithm = algorithm;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Ожидает, пока число занятых ресурсов станет меньше текущего лимита.
+     *
+     * @return разрешение, которое нужно освободить через release()
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= getLimitLocked()) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return new Permit(System.nanoTime());
+    }
+
+    /**
+     * @return разрешение или null, если лимит не освободился за отведенное время
+     */
+    public Permit tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= getLimitLocked()) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = permitAvailable.awaitNanos(nanos);
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return new Permit(System.nanoTime());
+    }
+
+    /**
+     * Текущий лимит одновременных доступов.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return getLimitLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Число ресурсов, занятых прямо сейчас.
+     */
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int getLimitLocked() {
+        return (int) limit;
+    }
+
+    private void onRelease(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            int before = getLimitLocked();
+            double updated = algorithm.update(limit, rttNanos, inFlight, dropped);
+            limit = Math.max(minLimit, Math.min(maxLimit, updated));
+            inFlight--;
+            if (getLimitLocked() > before) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Разрешение на доступ к ресурсу. Освобождается ровно один раз.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Освобождает ресурс и сообщает время работы алгоритму лимита.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(System.nanoTime() - startNanos, false);
+            }
+        }
+
+        /**
+         * Освобождает ресурс, сообщая, что запрос отклонен или завершился
+         * тайм-аутом. Такой исход считается признаком перегрузки.
+         */
+        public void releaseDropped() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(System.nanoTime() - startNanos, true);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    /**
+     * Алгоритм пересчета лимита. Вызывается под блокировкой пула,
+     * поэтому реализации могут хранить состояние без синхронизации.
+     */
+    public interface LimitAlgorithm {
+        /**
+         * @param limit текущий лимит
+         * @param rttNanos время от acquire() до release() для завершившегося запроса
+         * @param inFlight число занятых ресурсов, включая завершившийся запрос
+         * @param dropped запрос отклонен или завершился тайм-аутом
+         * @return новый лимит (пул ограничит его диапазоном [minLimit, maxLimit])
+         */
+        double update(double limit, long rttNanos, int inFlight, boolean dropped);
+    }
+
+    /**
+     * Additive increase / multiplicative decrease: лимит растет на 1, пока
+     * запросы укладываются в порог задержки и лимит реально используется,
+     * и умножается на backoffRatio при превышении порога или сбросе запроса.
+     */
+    public static final class Aimd implements LimitAlgorithm {
+        private final long latencyThresholdNanos;
+        private final double backoffRatio;
+
+        public Aimd(Duration latencyThreshold, double backoffRatio) {
+            if (backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio должен быть в (0, 1)");
+            }
+            this.latencyThresholdNanos = latencyThreshold.toNanos();
+            this.backoffRatio = backoffRatio;
+        }
+
+        @Override
+        public double update(double limit, long rttNanos, int inFlight, boolean dropped) {
+            if (dropped || rttNanos > latencyThresholdNanos) {
+                return limit * backoffRatio;
+            }
+            if (inFlight * 2 >= (int) limit) {
+                return limit + 1;
+            }
+            return limit;
+        }
+    }
+
+    /**
+     * Градиентный алгоритм: сравнивает долгосрочное среднее время ответа
+     * с краткосрочным. Если краткосрочное выросло, градиент меньше 1 и лимит
+     * уменьшается; запас sqrt(limit) позволяет лимиту расти, пока задержка стабильна.
+     */
+    public static final class Gradient implements LimitAlgorithm {
+        private static final double SMOOTHING = 0.2;
+        private static final double TOLERANCE = 1.5;
+
+        private final double longWindowAlpha;
+        private final double shortWindowAlpha;
+        private double longRtt;
+        private double shortRtt;
+
+        public Gradient() {
+            this(600, 10);
+        }
+
+        /**
+         * @param longWindow число замеров в долгосрочном экспоненциальном среднем
+         * @param shortWindow число замеров в краткосрочном экспоненциальном среднем
+         */
+        public Gradient(int longWindow, int shortWindow) {
+            this.longWindowAlpha = 2.0 / (longWindow + 1);
+            this.shortWindowAlpha = 2.0 / (shortWindow + 1);
+        }
+
+        @Override
+        public double update(double limit, long rttNanos, int inFlight, boolean dropped) {
+            if (longRtt == 0) {
+                longRtt = rttNanos;
+                shortRtt = rttNanos;
+                return limit;
+            }
+            shortRtt += shortWindowAlpha * (rttNanos - shortRtt);
+            longRtt += longWindowAlpha * (rttNanos - longRtt);
+            // Если задержка надолго упала, долгосрочное среднее догоняет ее быстрее.
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+            if (!dropped && inFlight < limit / 2) {
+                // Лимит не используется - данных для его увеличения нет.
+                return limit;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            double newLimit = dropped ? limit * 0.5 : limit * gradient + Math.sqrt(limit);
+            return limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+    }
+}
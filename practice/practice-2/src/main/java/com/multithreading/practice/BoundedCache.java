@@ -0,0 +1,477 @@
+package com.multithreading.practice;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Потокобезопасный кэш с ограничением размера и политикой вытеснения W-TinyLFU.
+ *
+ * Записи хранятся в ConcurrentHashMap, поэтому get() не берет блокировок.
+ * Порядок доступа ведется в трех LRU-очередях:
+ * - window: небольшое окно (1% размера) для новых записей;
+ * - probation: испытательный сегмент основной области;
+ * - protected: записи, к которым обращались повторно (80% основной области).
+ *
+ * Запись, вытесненная из окна, попадает в основную область, только если
+ * ее частота по FrequencySketch выше, чем у жертвы из probation. Так
+ * однократный проход по множеству ключей (scan) не вымывает горячие записи.
+ *
+ * Чтения не меняют очереди напрямую: узел кладется в кольцевой буфер
+ * с потерями, который разбирается пачками под evictionLock. При переполнении
+ * буфера события доступа просто отбрасываются. Буферов несколько (полосы),
+ * поток выбирает полосу по своему хэшу, как в StripedCounter, и при неудачном
+ * CAS переходит на другую - общий счетчик записей не становится узким местом.
+ */
+public class BoundedCache<K, V> {
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+    /** Число полос - степень двойки не меньше числа процессоров, но не больше 16. */
+    private static final int READ_BUFFER_STRIPES = Math.min(16, Integer.highestOneBit(NCPU * 2 - 1));
+    private static final int READ_BUFFER_STRIPE_MASK = READ_BUFFER_STRIPES - 1;
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int READ_DRAIN_THRESHOLD = 32;
+
+    private static final VarHandle WRITE_COUNT;
+
+    static {
+        try {
+            WRITE_COUNT = MethodHandles.lookup().findVarHandle(ReadBufferCounter.class, "writeCount", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Хэш потока для выбора полосы буфера чтений. Меняется при неудачном CAS.
+     */
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> {
+        int seed = ThreadLocalRandom.current().nextInt();
+        return new int[] {seed == 0 ? 1 : seed};
+    });
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int DEAD = 3;
+
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+
+    private final ReadBuffer<K, V>[] readBuffers;
+
+    private final long maximumSize;
+    private final long maxWindow;
+    private final long maxProtected;
+
+    // Поля ниже меняются только под evictionLock.
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+    private long windowSize;
+    private long mainSize;
+    private long protectedSize;
+
+    public BoundedCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize должен быть больше 0");
+        }
+        this.maximumSize = maximumSize;
+        this.maxWindow = Math.max(1, maximumSize / 100);
+        this.maxProtected = (long) ((maximumSize - maxWindow) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+        @SuppressWarnings("unchecked")
+        ReadBuffer<K, V>[] buffers = (ReadBuffer<K, V>[]) new ReadBuffer<?, ?>[READ_BUFFER_STRIPES];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ReadBuffer<>();
+        }
+        this.readBuffers = buffers;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        afterRead(node);
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            sketch.increment(key);
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                onAccess(node);
+                return;
+            }
+            node = new Node<>(key, value);
+            data.put(key, node);
+            node.queue = WINDOW;
+            window.addLast(node);
+            windowSize++;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public V remove(K key) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            Node<K, V> node = data.remove(key);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            return node.value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Принудительно применяет накопленные события доступа.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterRead(Node<K, V> node) {
+        int[] probe = PROBE.get();
+        long pending = readBuffers[probe[0] & READ_BUFFER_STRIPE_MASK].offer(node);
+        if (pending < 0) {
+            // Полосу делит другой поток - в следующий раз пишем в другую.
+            probe[0] = advanceProbe(probe[0]);
+            return;
+        }
+        if (pending >= READ_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            drain(buffer);
+        }
+    }
+
+    private void drain(ReadBuffer<K, V> buffer) {
+        long readCount = buffer.readCount;
+        long writeCount = buffer.writeCount;
+        while (readCount < writeCount) {
+            int index = (int) (readCount & READ_BUFFER_MASK);
+            Node<K, V> node = buffer.slots.get(index);
+            if (node == null) {
+                // Слот занят, но узел еще не опубликован - дочитаем в следующий раз.
+                break;
+            }
+            buffer.slots.lazySet(index, null);
+            sketch.increment(node.key);
+            onAccess(node);
+            readCount++;
+        }
+        buffer.readCount = readCount;
+    }
+
+    private static int advanceProbe(int h) {
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        return h;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> window.moveToBack(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                protectedSize++;
+                demoteFromProtected();
+            }
+            case PROTECTED -> protectedQueue.moveToBack(node);
+            default -> {
+                // Узел уже вытеснен или удален.
+            }
+        }
+    }
+
+    private void demoteFromProtected() {
+        while (protectedSize > maxProtected) {
+            Node<K, V> demoted = protectedQueue.pollFirst();
+            protectedSize--;
+            demoted.queue = PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    private void evict() {
+        while (windowSize > maxWindow) {
+            Node<K, V> candidate = window.pollFirst();
+            windowSize--;
+            if (windowSize + mainSize < maximumSize) {
+                candidate.queue = PROBATION;
+                probation.addLast(candidate);
+                mainSize++;
+                continue;
+            }
+            Node<K, V> victim = probation.peekFirst();
+            if (victim == null) {
+                victim = protectedQueue.peekFirst();
+            }
+            if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictNode(victim);
+                candidate.queue = PROBATION;
+                probation.addLast(candidate);
+                mainSize++;
+            } else {
+                candidate.queue = DEAD;
+                data.remove(candidate.key, candidate);
+            }
+        }
+    }
+
+    private void evictNode(Node<K, V> node) {
+        unlink(node);
+        data.remove(node.key, node);
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> {
+                window.remove(node);
+                windowSize--;
+            }
+            case PROBATION -> {
+                probation.remove(node);
+                mainSize--;
+            }
+            case PROTECTED -> {
+                protectedQueue.remove(node);
+                protectedSize--;
+                mainSize--;
+            }
+            default -> {
+                return;
+            }
+        }
+        node.queue = DEAD;
+    }
+
+    static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        int queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Счетчик записей полосы, отделенный полями от соседних полос,
+     * чтобы CAS разных потоков не делили кэш-линию.
+     */
+    @SuppressWarnings("unused")
+    static class ReadBufferLeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    static class ReadBufferCounter extends ReadBufferLeftPadding {
+        volatile long writeCount;
+    }
+
+    /**
+     * Полоса буфера чтений: кольцо с потерями. Пишут все потоки, выбравшие
+     * полосу, читает только владелец evictionLock.
+     */
+    @SuppressWarnings("unused")
+    static final class ReadBuffer<K, V> extends ReadBufferCounter {
+        long p11, p12, p13, p14, p15, p16, p17;
+        final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        volatile long readCount;
+
+        /**
+         * @return число неразобранных событий в полосе или -1, если CAS
+         *         проиграл другому потоку и событие отброшено
+         */
+        long offer(Node<K, V> node) {
+            long readCount = this.readCount;
+            long writeCount = this.writeCount;
+            long pending = writeCount - readCount;
+            if (pending >= READ_BUFFER_SIZE) {
+                return pending;
+            }
+            if (!WRITE_COUNT.compareAndSet(this, writeCount, writeCount + 1)) {
+                return -1;
+            }
+            slots.lazySet((int) (writeCount & READ_BUFFER_MASK), node);
+            return pending + 1;
+        }
+    }
+
+    /**
+     * Двусвязная очередь по порядку доступа. Ссылки хранятся в самих узлах.
+     */
+    static final class AccessOrderDeque<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Count-Min Sketch с 4-битными счетчиками (по 16 в одном long).
+     * Когда число добавлений достигает 10 * maximumSize, все счетчики
+     * делятся пополам, чтобы старая популярность со временем забывалась.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final long sampleSize;
+        private long size;
+
+        FrequencySketch(long maximumSize) {
+            int capacity = (int) Math.min(maximumSize, 1 << 30);
+            int length = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+            this.table = new long[length];
+            this.tableMask = length - 1;
+            this.sampleSize = 10 * maximumSize;
+        }
+
+        int frequency(Object item) {
+            int hash = spread(item.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object item) {
+            int hash = spread(item.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++size >= sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int index, int counter) {
+            int offset = counter << 2;
+            long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        private void reset() {
+            int odd = 0;
+            for (int i = 0; i < table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (odd >>> 2);
+        }
+
+        private int indexOf(int item, int i) {
+            long hash = (item + SEEDS[i]) * SEEDS[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.multithreading.practice;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Загружающий кэш поверх ThreadSafeCache с защитой от "стампиды".
+ *
+ * Если ключа нет в кэше, значение загружает только один поток (single flight):
+ * он регистрирует CompletableFuture в карте текущих загрузок, остальные
+ * потоки с тем же ключом ждут этот же future, а не вызывают загрузчик сами.
+ * getAll() собирает все промахи в один вызов пакетного загрузчика.
+ *
+ * Загрузчик может вернуть null - такое значение не кэшируется.
+ *
+ * Режим stale-while-revalidate (refresh-ahead): если задан refreshAfterWrite,
+ * для каждой записи хранится отметка записи. Чтение записи старше этого срока
+ * сразу возвращает старое значение и запускает одну асинхронную перезагрузку
+ * на refreshExecutor. Читатели никогда не ждут обновления; если перезагрузка
+ * упала или вернула null, остается старое значение. Перезагрузка сохраняет
+ * результат, только если отметка ключа не сменилась с ее начала: значение,
+ * записанное через put() во время перезагрузки, не затирается более старым.
+ *
+ * Отметки удаляются в invalidate(), а для записей, удаленных из ThreadSafeCache
+ * напрямую, - при следующем промахе по ключу.
+ */
+public class LoadingCache<K, V> {
+    private final ThreadSafeCache<K, V> cache;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final long refreshAfterNanos;
+    private final Executor refreshExecutor;
+    /** Отметка записи ключа. Меняется вместе со значением внутри compute(). */
+    private final Map<K, WriteStamp> writeStamps = new ConcurrentHashMap<>();
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    public LoadingCache() {
+        this(new ThreadSafeCache<>());
+    }
+
+    public LoadingCache(ThreadSafeCache<K, V> cache) {
+        this.cache = cache;
+        this.refreshAfterNanos = Long.MAX_VALUE;
+        this.refreshExecutor = null;
+    }
+
+    /**
+     * Создает кэш в режиме stale-while-revalidate.
+     *
+     * @param refreshAfterWrite возраст записи, после которого чтение запускает перезагрузку
+     * @param refreshExecutor исполнитель для асинхронных перезагрузок
+     */
+    public LoadingCache(ThreadSafeCache<K, V> cache, Duration refreshAfterWrite, Executor refreshExecutor) {
+        if (refreshAfterWrite.isNegative() || refreshAfterWrite.isZero()) {
+            throw new IllegalArgumentException("refreshAfterWrite должен быть положительным");
+        }
+        this.cache = cache;
+        this.refreshAfterNanos = refreshAfterWrite.toNanos();
+        this.refreshExecutor = Objects.requireNonNull(refreshExecutor);
+    }
+
+    public V getIfPresent(K key) {
+        return cache.get(key);
+    }
+
+    public void put(K key, V value) {
+        store(key, value);
+    }
+
+    /**
+     * Удаляет значение ключа. Идущая перезагрузка ключ не вернет.
+     */
+    public void invalidate(K key) {
+        writeStamps.compute(key, (k, stamp) -> {
+            cache.write(map -> map.remove(k));
+            return null;
+        });
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает его. Для одного ключа
+     * одновременно выполняется не больше одной загрузки.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = cache.get(key);
+        if (value != null) {
+            refreshIfStale(key, loader);
+            return value;
+        }
+        forgetIfAbsent(key);
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            // Загрузка, завершившаяся между промахом и регистрацией, уже положила значение.
+            value = cache.get(key);
+            if (value == null) {
+                value = loader.apply(key);
+                if (value != null) {
+                    store(key, value);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Возвращает значения для набора ключей. Промахи, которые никто еще
+     * не загружает, передаются в bulkLoader одним вызовом; ключи, которые
+     * уже загружаются другими потоками, ожидаются.
+     *
+     * @param bulkLoader получает множество ключей и возвращает найденные значения;
+     *                   ключи, которых нет в ответе, считаются отсутствующими
+     * @return найденные значения в порядке переданных ключей
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys,
+                            Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader) {
+        Map<K, V> result = new HashMap<>();
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> awaited = new HashMap<>();
+        Map<K, WriteStamp> stale = new LinkedHashMap<>();
+
+        for (K key : keys) {
+            if (result.containsKey(key) || owned.containsKey(key) || awaited.containsKey(key)) {
+                continue;
+            }
+            V value = cache.get(key);
+            if (value != null) {
+                result.put(key, value);
+                WriteStamp stamp = staleStamp(key);
+                if (stamp != null && refreshing.add(key)) {
+                    stale.put(key, stamp);
+                }
+                continue;
+            }
+            forgetIfAbsent(key);
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing != null) {
+                awaited.put(key, existing);
+            } else {
+                owned.put(key, future);
+            }
+        }
+
+        if (!stale.isEmpty()) {
+            refreshAsync(stale, bulkLoader);
+        }
+        if (!owned.isEmpty()) {
+            loadOwned(owned, bulkLoader);
+            for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+                putIfNotNull(result, entry.getKey(), entry.getValue().join());
+            }
+        }
+        for (Map.Entry<K, CompletableFuture<V>> entry : awaited.entrySet()) {
+            putIfNotNull(result, entry.getKey(), await(entry.getValue()));
+        }
+
+        // Восстанавливаем порядок переданных ключей.
+        Map<K, V> ordered = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = result.get(key);
+            if (value != null) {
+                ordered.put(key, value);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Число ключей, загрузка которых выполняется прямо сейчас.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void loadOwned(Map<K, CompletableFuture<V>> owned,
+                           Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader) {
+        try {
+            Set<K> misses = new LinkedHashSet<>();
+            for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+                V value = cache.get(entry.getKey());
+                if (value != null) {
+                    entry.getValue().complete(value);
+                } else {
+                    misses.add(entry.getKey());
+                }
+            }
+            Map<? extends K, ? extends V> loaded = misses.isEmpty() ? Map.of() : bulkLoader.apply(misses);
+            for (K key : misses) {
+                V value = loaded.get(key);
+                if (value != null) {
+                    store(key, value);
+                }
+                owned.get(key).complete(value);
+            }
+        } catch (RuntimeException | Error e) {
+            for (CompletableFuture<V> future : owned.values()) {
+                future.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            for (Map.Entry<K, CompletableFuture<V>> entry : owned.entrySet()) {
+                inFlight.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void store(K key, V value) {
+        if (refreshExecutor == null) {
+            cache.put(key, value);
+            return;
+        }
+        writeStamps.compute(key, (k, stamp) -> {
+            cache.put(k, value);
+            return new WriteStamp(System.nanoTime());
+        });
+    }
+
+    /**
+     * Сохраняет результат перезагрузки, если с ее начала ключ не перезаписали
+     * и не удалили.
+     */
+    private void storeIfUnchanged(K key, V value, WriteStamp expected) {
+        writeStamps.compute(key, (k, stamp) -> {
+            if (stamp != expected) {
+                return stamp;
+            }
+            cache.put(k, value);
+            return new WriteStamp(System.nanoTime());
+        });
+    }
+
+    /**
+     * Возвращает отметку записи, если запись устарела, иначе null.
+     */
+    private WriteStamp staleStamp(K key) {
+        if (refreshExecutor == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        // Запись, положенная в ThreadSafeCache в обход этого класса, считается записанной сейчас.
+        WriteStamp stamp = writeStamps.computeIfAbsent(key, k -> new WriteStamp(now));
+        return now - stamp.writtenAtNanos() >= refreshAfterNanos ? stamp : null;
+    }
+
+    /**
+     * Убирает отметку ключа, которого больше нет в кэше.
+     */
+    private void forgetIfAbsent(K key) {
+        if (refreshExecutor != null) {
+            writeStamps.computeIfPresent(key, (k, stamp) -> cache.get(k) == null ? null : stamp);
+        }
+    }
+
+    private void refreshIfStale(K key, Function<? super K, ? extends V> loader) {
+        WriteStamp stamp = staleStamp(key);
+        if (stamp != null && refreshing.add(key)) {
+            refreshAsync(Map.of(key, stamp), keys -> {
+                V value = loader.apply(key);
+                return value == null ? Map.of() : Map.of(key, value);
+            });
+        }
+    }
+
+    /**
+     * Перезагружает ключи, уже помеченные в refreshing. Ошибки загрузки
+     * не выходят наружу - в кэше остаются старые значения.
+     */
+    private void refreshAsync(Map<K, WriteStamp> stamps,
+                              Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> bulkLoader) {
+        Set<K> keys = new LinkedHashSet<>(stamps.keySet());
+        Runnable refresh = () -> {
+            try {
+                Map<? extends K, ? extends V> loaded = bulkLoader.apply(keys);
+                for (Map.Entry<K, WriteStamp> entry : stamps.entrySet()) {
+                    V value = loaded.get(entry.getKey());
+                    if (value != null) {
+                        storeIfUnchanged(entry.getKey(), value, entry.getValue());
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Оставляем устаревшее значение, следующее чтение попробует еще раз.
+            } finally {
+                refreshing.removeAll(keys);
+            }
+        };
+        try {
+            refreshExecutor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            refreshing.removeAll(keys);
+        }
+    }
+
+    /**
+     * Отметка записи. Сравнивается по ссылке: каждая запись создает новую отметку.
+     */
+    private record WriteStamp(long writtenAtNanos) {
+    }
+
+    private static <K, V> void putIfNotNull(Map<K, V> map, K key, V value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.multithreading.practice;
 
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Потокобезопасный счетчик с использованием ReentrantLock.
+ *
+ * Блокировку можно заменить, например, на SpinThenParkLock,
+ * который для коротких критических секций крутится вместо парковки.
  */
 public class LockCounter {
     private int count = 0;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final Lock lock;
+    
+    public LockCounter() {
+        this(new ReentrantLock());
+    }
+    
+    public LockCounter(Lock lock) {
+        this.lock = lock;
+    }
     
     public void increment() {
         lock.lock();
@@ -27,4 +39,3 @@ public class LockCounter {
         }
     }
 }
-
@@ -0,0 +1,377 @@
+package com.multithreading.practice;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Пул переиспользуемых объектов поверх ResourcePool.
+ *
+ * Объект ищется в таком порядке:
+ * 1. объект, который текущий поток вернул последним (ThreadLocal) -
+ *    он, скорее всего, еще лежит в кэше этого ядра. Захват - CAS по состоянию
+ *    самого объекта, общие для всех потоков поля не трогаются;
+ * 2. объект, оставленный другим потоком в своем ThreadLocal (перехват);
+ * 3. разрешение ResourcePool, а с ним - объект из общего lock-free стека
+ *    свободных объектов (стек Трайбера) или право создать новый через factory.
+ *
+ * Разрешения ResourcePool считают объекты, доступные через стек, плюс
+ * еще не созданные: объект, оставленный в ThreadLocal, держит свое разрешение.
+ * Пока кто-то ждет разрешения, возвращаемые объекты сразу уходят в стек.
+ */
+public class ObjectPool<T> implements AutoCloseable {
+    /** Выдан в аренду. */
+    private static final int IN_USE = 0;
+    /** Свободен и лежит в ThreadLocal вернувшего его потока. */
+    private static final int LOCAL = 1;
+    /** Свободен и лежит в общем стеке. */
+    private static final int SHARED = 2;
+    private static final int DESTROYED = 3;
+
+    private final ResourcePool permits;
+    private final int maxSize;
+    private final Supplier<T> factory;
+    private final Predicate<T> validator;
+    private final Consumer<T> destroyer;
+    private final long maxIdleNanos;
+
+    private final ThreadLocal<Entry<T>> lastReleased = new ThreadLocal<>();
+    private final AtomicReference<StackNode<T>> idleStack = new AtomicReference<>();
+    private final Set<Entry<T>> allEntries = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger(0);
+    /** Потоки, не нашедшие объект в своем ThreadLocal. */
+    private final AtomicInteger waiters = new AtomicInteger(0);
+    private volatile boolean closed;
+
+    public ObjectPool(int maxSize, Supplier<T> factory) {
+        this(maxSize, factory, object -> true, object -> { }, Duration.ofMinutes(10));
+    }
+
+    /**
+     * @param maxSize максимальное число объектов в пуле
+     * @param factory создает новый объект
+     * @param validator проверяет объект перед выдачей и после возврата
+     * @param destroyer освобождает объект, который больше не нужен пулу
+     * @param maxIdle сколько объект может пролежать без дела до вытеснения в evictIdle()
+     */
+    public ObjectPool(int maxSize, Supplier<T> factory, Predicate<T> validator,
+                      Consumer<T> destroyer, Duration maxIdle) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize должен быть больше 0");
+        }
+        this.permits = new ResourcePool(maxSize);
+        this.maxSize = maxSize;
+        this.factory = factory;
+        this.validator = validator;
+        this.destroyer = destroyer;
+        this.maxIdleNanos = maxIdle.toNanos();
+    }
+
+    /**
+     * Берет объект из пула, ожидая освобождения не дольше указанного времени.
+     *
+     * @return аренда, которую нужно закрыть для возврата объекта в пул
+     * @throws TimeoutException если за отведенное время объект не освободился
+     * @throws InterruptedException если поток был прерван
+     */
+    public Lease borrow(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        checkOpen();
+        Entry<T> entry = lastReleased.get();
+        if (entry != null) {
+            if (entry.state.compareAndSet(LOCAL, IN_USE)) {
+                if (validate(entry, true)) {
+                    return new Lease(entry);
+                }
+            } else if (entry.state.get() == DESTROYED) {
+                lastReleased.remove();
+            }
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waiters.incrementAndGet();
+        try {
+            // Сначала объявляем себя ожидающим, потом ищем: release() делает
+            // наоборот, поэтому оставленный в ThreadLocal объект не потеряется.
+            entry = stealLocal();
+            if (entry != null) {
+                return new Lease(entry);
+            }
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("Не удалось получить объект из пула за " + timeout + " " + unit);
+            }
+            try {
+                return new Lease(obtainShared(deadline, timeout, unit));
+            } catch (RuntimeException | Error | TimeoutException e) {
+                permits.release();
+                throw e;
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Уничтожает объекты, которые простаивают дольше maxIdle.
+     * Метод рассчитан на периодический вызов, например из ScheduledExecutorService.
+     *
+     * @return число уничтоженных объектов
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Entry<T> entry : allEntries) {
+            if (now - entry.lastReleasedNanos >= maxIdleNanos && destroyIfIdle(entry)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Число объектов, созданных пулом и еще не уничтоженных.
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Число объектов, выданных в аренду прямо сейчас.
+     */
+    public int getActiveCount() {
+        int active = 0;
+        for (Entry<T> entry : allEntries) {
+            if (entry.state.get() == IN_USE) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Entry<T> entry : allEntries) {
+            destroyIfIdle(entry);
+        }
+    }
+
+    /**
+     * Забирает объект, который другой поток оставил в своем ThreadLocal.
+     * Разрешение остается за объектом.
+     */
+    private Entry<T> stealLocal() {
+        for (Entry<T> entry : allEntries) {
+            if (entry.state.compareAndSet(LOCAL, IN_USE) && validate(entry, true)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Вызывается с полученным разрешением: оно гарантирует, что в стеке есть
+     * свободный объект или пул еще не заполнен. Ждать приходится, только
+     * пока вытесняемый объект уже ушел из стека, но size еще не уменьшен.
+     */
+    private Entry<T> obtainShared(long deadline, long timeout, TimeUnit unit) throws TimeoutException {
+        for (;;) {
+            Entry<T> entry;
+            while ((entry = pop()) != null) {
+                if (entry.state.compareAndSet(SHARED, IN_USE) && validate(entry, false)) {
+                    return entry;
+                }
+            }
+            int current = size.get();
+            if (current < maxSize) {
+                if (size.compareAndSet(current, current + 1)) {
+                    return create();
+                }
+                continue;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new TimeoutException("Не удалось получить объект из пула за " + timeout + " " + unit);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private Entry<T> create() {
+        T object;
+        try {
+            object = factory.get();
+        } catch (RuntimeException | Error e) {
+            size.decrementAndGet();
+            throw e;
+        }
+        Entry<T> entry = new Entry<>(object);
+        allEntries.add(entry);
+        return entry;
+    }
+
+    /**
+     * Проверяет захваченный объект. Негодный объект, в том числе если
+     * validator бросил исключение, уничтожается.
+     *
+     * @param holdsPermit держит ли объект разрешение, которое нужно вернуть при уничтожении
+     */
+    private boolean validate(Entry<T> entry, boolean holdsPermit) {
+        boolean valid = false;
+        try {
+            valid = validator.test(entry.object);
+        } finally {
+            if (!valid) {
+                entry.state.set(DESTROYED);
+                destroy(entry, holdsPermit);
+            }
+        }
+        return valid;
+    }
+
+    private void release(Entry<T> entry) {
+        if (closed || !validate(entry, true)) {
+            if (entry.state.compareAndSet(IN_USE, DESTROYED)) {
+                destroy(entry, true);
+            }
+            return;
+        }
+        entry.lastReleasedNanos = System.nanoTime();
+        Entry<T> previous = lastReleased.get();
+        lastReleased.set(entry);
+        entry.state.set(LOCAL);
+        if (previous != null && previous != entry) {
+            // В ThreadLocal помещается один объект, предыдущий уходит в общий стек.
+            share(previous);
+        }
+        // Порядок важен: сначала LOCAL, затем проверка waiters.
+        if (waiters.get() > 0) {
+            share(entry);
+        }
+    }
+
+    /**
+     * Переносит объект из ThreadLocal в общий стек и возвращает его разрешение.
+     */
+    private void share(Entry<T> entry) {
+        if (entry.state.compareAndSet(LOCAL, SHARED)) {
+            push(entry);
+            permits.release();
+        }
+    }
+
+    private boolean destroyIfIdle(Entry<T> entry) {
+        if (entry.state.compareAndSet(LOCAL, DESTROYED)) {
+            destroy(entry, true);
+            return true;
+        }
+        if (entry.state.compareAndSet(SHARED, DESTROYED)) {
+            destroy(entry, false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Убирает объект из пула. size уменьшается и разрешение возвращается
+     * даже если destroyer бросит исключение.
+     */
+    private void destroy(Entry<T> entry, boolean releasePermit) {
+        T object = entry.object;
+        // ThreadLocal других потоков может ссылаться на запись - объект в ней не держим.
+        entry.object = null;
+        if (lastReleased.get() == entry) {
+            lastReleased.remove();
+        }
+        boolean removed = allEntries.remove(entry);
+        if (removed) {
+            size.decrementAndGet();
+        }
+        try {
+            if (removed) {
+                destroyer.accept(object);
+            }
+        } finally {
+            if (releasePermit) {
+                permits.release();
+            }
+        }
+    }
+
+    private void push(Entry<T> entry) {
+        StackNode<T> node = new StackNode<>(entry);
+        StackNode<T> head;
+        do {
+            head = idleStack.get();
+            node.next = head;
+        } while (!idleStack.compareAndSet(head, node));
+    }
+
+    private Entry<T> pop() {
+        StackNode<T> head;
+        do {
+            head = idleStack.get();
+            if (head == null) {
+                return null;
+            }
+        } while (!idleStack.compareAndSet(head, head.next));
+        return head.entry;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Пул закрыт");
+        }
+    }
+
+    /**
+     * Аренда объекта. close() возвращает объект в пул; повторный close() ничего не делает.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Entry<T> entry;
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+
+        private Lease(Entry<T> entry) {
+            this.entry = entry;
+        }
+
+        public T get() {
+            if (returned.get()) {
+                throw new IllegalStateException("Объект уже возвращен в пул");
+            }
+            return entry.object;
+        }
+
+        @Override
+        public void close() {
+            if (returned.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        /** Обнуляется при уничтожении. */
+        T object;
+        final AtomicInteger state = new AtomicInteger(IN_USE);
+        volatile long lastReleasedNanos;
+
+        Entry(T object) {
+            this.object = object;
+        }
+    }
+
+    private static final class StackNode<T> {
+        final Entry<T> entry;
+        StackNode<T> next;
+
+        StackNode(Entry<T> entry) {
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.multithreading.practice;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free ограничитель скорости (token bucket в форме GCRA).
+ *
+ * ResourcePool ограничивает число одновременных обращений, а RateLimiter -
+ * их частоту. Все состояние ведра - одно число в AtomicLong: теоретическое
+ * время прибытия (TAT) следующего разрешения в наносекундах System.nanoTime().
+ * Каждое разрешение сдвигает TAT на interval = 1 с / permitsPerSecond.
+ * Запрос проходит, если новый TAT опережает текущее время не больше, чем
+ * на burstCapacity интервалов. Пополнение ведра вычисляется из разницы
+ * времени, поэтому фоновый поток не нужен.
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final int burstCapacity;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond средняя скорость выдачи разрешений
+     * @param burstCapacity сколько разрешений можно получить разом после простоя
+     */
+    public RateLimiter(double permitsPerSecond, int burstCapacity) {
+        if (permitsPerSecond <= 0 || burstCapacity <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond и burstCapacity должны быть больше 0");
+        }
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstToleranceNanos = intervalNanos * burstCapacity;
+        this.burstCapacity = burstCapacity;
+        // Ведро изначально полное.
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Получает разрешения, если они доступны прямо сейчас.
+     */
+    public boolean tryAcquire(int permits) {
+        checkPermits(permits);
+        long cost = permits * intervalNanos;
+        for (;;) {
+            long tat = theoreticalArrival.get();
+            long now = System.nanoTime();
+            long next = later(tat, now) + cost;
+            if (next - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ожидает разрешения не дольше указанного времени. Если разрешения
+     * не успеют накопиться за timeout, метод сразу возвращает false,
+     * ничего не резервируя.
+     */
+    public boolean acquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        long waitNanos = reserve(permits, unit.toNanos(timeout));
+        if (waitNanos < 0) {
+            return false;
+        }
+        long deadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            waitNanos = deadline - System.nanoTime();
+        }
+        return true;
+    }
+
+    /**
+     * Резервирует разрешения и возвращает future, который завершится,
+     * когда они станут доступны. Поток вызывающего не блокируется.
+     */
+    public CompletableFuture<Void> acquireAsync(int permits) {
+        long waitNanos = reserve(permits, Long.MAX_VALUE);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (waitNanos == 0) {
+            future.complete(null);
+            return future;
+        }
+        return future.completeOnTimeout(null, waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public int getBurstCapacity() {
+        return burstCapacity;
+    }
+
+    /**
+     * Сдвигает TAT на стоимость разрешений, если ожидание не превысит maxWaitNanos.
+     *
+     * @return сколько наносекунд ждать до выдачи разрешений или -1, если слишком долго
+     */
+    private long reserve(int permits, long maxWaitNanos) {
+        checkPermits(permits);
+        long cost = permits * intervalNanos;
+        for (;;) {
+            long tat = theoreticalArrival.get();
+            long now = System.nanoTime();
+            long next = later(tat, now) + cost;
+            long waitNanos = Math.max(0L, next - now - burstToleranceNanos);
+            if (waitNanos > maxWaitNanos) {
+                return -1L;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return waitNanos;
+            }
+        }
+    }
+
+    private void checkPermits(int permits) {
+        if (permits <= 0 || permits > burstCapacity) {
+            throw new IllegalArgumentException("permits должен быть в диапазоне [1, " + burstCapacity + "]");
+        }
+    }
+
+    /** Сравнение значений System.nanoTime() с учетом переполнения. */
+    private static long later(long a, long b) {
+        return a - b > 0 ? a : b;
+    }
+}
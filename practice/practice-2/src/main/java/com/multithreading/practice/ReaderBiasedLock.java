@@ -0,0 +1,101 @@
+package com.multithreading.practice;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-write блокировка со смещением в пользу читателей (алгоритм BRAVO).
+ *
+ * В ReentrantReadWriteLock каждый читатель делает CAS по одному общему
+ * слову состояния, и эта кэш-линия прыгает между ядрами. Здесь, пока
+ * включено смещение (readBias), читатель занимает свой слот в таблице
+ * видимых читателей и не трогает общее состояние вовсе. Слоты разнесены
+ * по разным кэш-линиям, поток выбирает слот по хэшу.
+ *
+ * Писатель берет обычную блокировку записи, снимает смещение и ждет,
+ * пока все слоты опустеют. Чтобы частые записи не делали эту процедуру
+ * постоянной, смещение включается снова только спустя время,
+ * в INHIBIT_MULTIPLIER раз большее, чем длилось ожидание слотов.
+ */
+public class ReaderBiasedLock {
+    private static final int SLOT_STRIDE = 16;
+    private static final int INHIBIT_MULTIPLIER = 9;
+    private static final long SLOW_PATH = 0L;
+
+    private final ReentrantReadWriteLock underlying = new ReentrantReadWriteLock();
+    private final AtomicReferenceArray<Object> visibleReaders;
+    private final int slotMask;
+
+    private volatile boolean readBias = true;
+    private volatile long inhibitUntilNanos;
+
+    public ReaderBiasedLock() {
+        int slots = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1)) << 1;
+        this.visibleReaders = new AtomicReferenceArray<>(slots * SLOT_STRIDE);
+        this.slotMask = slots - 1;
+    }
+
+    /**
+     * Захватывает блокировку на чтение.
+     *
+     * @return штамп, который нужно передать в unlockRead()
+     */
+    public long readLock() {
+        if (readBias) {
+            int index = slotIndex();
+            if (visibleReaders.compareAndSet(index, null, this)) {
+                // Писатель снимает смещение до сканирования слотов, поэтому
+                // после повторной проверки он либо нас увидит, либо мы уйдем в медленный путь.
+                if (readBias) {
+                    return index + 1L;
+                }
+                visibleReaders.set(index, null);
+            }
+        }
+        underlying.readLock().lock();
+        if (!readBias && System.nanoTime() - inhibitUntilNanos >= 0) {
+            readBias = true;
+        }
+        return SLOW_PATH;
+    }
+
+    public void unlockRead(long stamp) {
+        if (stamp == SLOW_PATH) {
+            underlying.readLock().unlock();
+        } else {
+            visibleReaders.set((int) (stamp - 1), null);
+        }
+    }
+
+    public void writeLock() {
+        underlying.writeLock().lock();
+        if (readBias) {
+            readBias = false;
+            long start = System.nanoTime();
+            for (int i = 0; i < visibleReaders.length(); i += SLOT_STRIDE) {
+                while (visibleReaders.get(i) != null) {
+                    Thread.onSpinWait();
+                }
+            }
+            long now = System.nanoTime();
+            inhibitUntilNanos = now + (now - start) * INHIBIT_MULTIPLIER;
+        }
+    }
+
+    public void unlockWrite() {
+        underlying.writeLock().unlock();
+    }
+
+    /**
+     * Включено ли сейчас смещение в пользу читателей.
+     */
+    public boolean isReadBiased() {
+        return readBias;
+    }
+
+    private int slotIndex() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) & slotMask) * SLOT_STRIDE;
+    }
+}
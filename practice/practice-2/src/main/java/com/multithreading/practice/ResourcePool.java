@@ -1,6 +1,7 @@
 package com.multithreading.practice;
 
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -19,6 +20,19 @@ public class ResourcePool {
         activeResources.incrementAndGet();
     }
     
+    /**
+     * Пытается получить ресурс, ожидая не дольше указанного времени.
+     *
+     * @return true, если ресурс получен
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!semaphore.tryAcquire(timeout, unit)) {
+            return false;
+        }
+        activeResources.incrementAndGet();
+        return true;
+    }
+    
     public void release() {
         activeResources.decrementAndGet();
         semaphore.release();
@@ -0,0 +1,216 @@
+package com.multithreading.practice;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Блокировка, которая перед парковкой потока немного крутится в цикле.
+ *
+ * ReentrantLock паркует поток сразу, как только видит блокировку занятой.
+ * Если критическая секция длится наносекунды (например, count++),
+ * park/unpark обходится дороже самой работы. Здесь поток сначала
+ * повторяет попытку захвата с Thread.onSpinWait(), и только когда бюджет
+ * спина исчерпан, встает в очередь AbstractQueuedSynchronizer и паркуется.
+ *
+ * Бюджет спина подстраивается по экспоненциальному среднему времени
+ * удержания блокировки: короткие секции - крутимся дольше, длинные - паркуемся сразу.
+ *
+ * Блокировка не реентерабельна. Condition работает как у ReentrantLock:
+ * await() отпускает блокировку и захватывает ее снова через очередь AQS, без спина.
+ */
+public class SpinThenParkLock implements Lock {
+    private static final boolean MULTI_CORE = Runtime.getRuntime().availableProcessors() > 1;
+    /** Примерная стоимость одной итерации спина. */
+    private static final long NANOS_PER_SPIN = 20;
+    private static final int MAX_SPINS = 1 << 10;
+    /** Дольше этого времени крутиться нет смысла - дешевле запарковаться. */
+    private static final long MAX_SPIN_HOLD_NANOS = MAX_SPINS * NANOS_PER_SPIN;
+
+    private final Sync sync = new Sync();
+
+    // Пишутся только владельцем блокировки, читаются без синхронизации как подсказка.
+    private long acquiredAtNanos;
+    private volatile long averageHoldNanos;
+
+    @Override
+    public void lock() {
+        if (!spinAcquire()) {
+            sync.acquire(1);
+        }
+        acquiredAtNanos = System.nanoTime();
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (!spinAcquire()) {
+            sync.acquireInterruptibly(1);
+        }
+        acquiredAtNanos = System.nanoTime();
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (sync.tryAcquire(1)) {
+            acquiredAtNanos = System.nanoTime();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (spinAcquire() || sync.tryAcquireNanos(1, unit.toNanos(time))) {
+            acquiredAtNanos = System.nanoTime();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void unlock() {
+        if (!sync.isHeldExclusively()) {
+            throw new IllegalMonitorStateException();
+        }
+        long held = System.nanoTime() - acquiredAtNanos;
+        long average = averageHoldNanos;
+        // EMA с коэффициентом 1/8: бюджет реагирует на изменение нагрузки за несколько захватов.
+        averageHoldNanos = average + ((held - average) >> 3);
+        sync.release(1);
+    }
+
+    @Override
+    public Condition newCondition() {
+        return new SpinCondition(sync.newCondition());
+    }
+
+    /**
+     * Текущий бюджет спина в итерациях.
+     */
+    public int getSpinBudget() {
+        if (!MULTI_CORE) {
+            return 0;
+        }
+        long average = averageHoldNanos;
+        if (average > MAX_SPIN_HOLD_NANOS) {
+            return 0;
+        }
+        // Крутимся примерно вдвое дольше среднего удержания, но не меньше 16 итераций.
+        return (int) Math.max(16, Math.min(MAX_SPINS, 2 * average / NANOS_PER_SPIN));
+    }
+
+    public boolean isLocked() {
+        return sync.isHeld();
+    }
+
+    private boolean spinAcquire() {
+        int spins = getSpinBudget();
+        for (int i = 0; i < spins; i++) {
+            if (!sync.isHeld() && sync.tryAcquire(1)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        return false;
+    }
+
+    /**
+     * Condition из AQS. После await() блокировка захвачена заново, поэтому время
+     * удержания отсчитывается с этого момента, а не включает ожидание.
+     */
+    private final class SpinCondition implements Condition {
+        private final Condition condition;
+
+        SpinCondition(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            try {
+                condition.await();
+            } finally {
+                acquiredAtNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            condition.awaitUninterruptibly();
+            acquiredAtNanos = System.nanoTime();
+        }
+
+        @Override
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            try {
+                return condition.awaitNanos(nanosTimeout);
+            } finally {
+                acquiredAtNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            try {
+                return condition.await(time, unit);
+            } finally {
+                acquiredAtNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            try {
+                return condition.awaitUntil(deadline);
+            } finally {
+                acquiredAtNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void signal() {
+            condition.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+
+    private static final class Sync extends AbstractQueuedSynchronizer {
+        @Override
+        protected boolean tryAcquire(int arg) {
+            if (compareAndSetState(0, 1)) {
+                setExclusiveOwnerThread(Thread.currentThread());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int arg) {
+            if (getExclusiveOwnerThread() != Thread.currentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            setExclusiveOwnerThread(null);
+            setState(0);
+            return true;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        boolean isHeld() {
+            return getState() != 0;
+        }
+
+        Condition newCondition() {
+            return new ConditionObject();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.multithreading.practice;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Потокобезопасный счетчик с разнесением нагрузки по ячейкам (striping).
+ *
+ * Пока конкуренции нет, все потоки делают CAS по общему полю base.
+ * Как только CAS по base начинает проваливаться, счетчик заводит массив
+ * ячеек, выровненных по кэш-линиям, и каждый поток пишет в свою ячейку
+ * по хэшу потока. Массив удваивается при росте конкуренции, но не больше
+ * числа процессоров. Итоговое значение - сумма base и всех ячеек.
+ *
+ * Подходит для счетчиков, в которые много пишут и редко читают
+ * (по аналогии с java.util.concurrent.atomic.LongAdder).
+ */
+public class StripedCounter {
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    private static final VarHandle BASE;
+    private static final VarHandle CELLS_BUSY;
+    private static final VarHandle CELL_VALUE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BASE = lookup.findVarHandle(StripedCounter.class, "base", long.class);
+            CELLS_BUSY = lookup.findVarHandle(StripedCounter.class, "cellsBusy", int.class);
+            CELL_VALUE = lookup.findVarHandle(CellValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Хэш потока для выбора ячейки. Меняется при коллизии, чтобы потоки
+     * разъезжались по разным ячейкам.
+     */
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> {
+        int seed = ThreadLocalRandom.current().nextInt();
+        return new int[] {seed == 0 ? 1 : seed};
+    });
+
+    private volatile long base;
+    private volatile Cell[] cells;
+    private volatile int cellsBusy;
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void add(long x) {
+        Cell[] cs = cells;
+        long b;
+        if (cs == null && BASE.compareAndSet(this, b = base, b + x)) {
+            return;
+        }
+        int[] probe = PROBE.get();
+        boolean uncontended = true;
+        Cell c;
+        long v;
+        if (cs == null
+                || (c = cs[probe[0] & (cs.length - 1)]) == null
+                || !(uncontended = CELL_VALUE.compareAndSet(c, v = c.value, v + x))) {
+            addContended(x, probe, uncontended);
+        }
+    }
+
+    /**
+     * Возвращает текущую сумму. При одновременных изменениях значение
+     * не является атомарным снимком.
+     */
+    public long sum() {
+        long sum = base;
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                if (c != null) {
+                    sum += c.value;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Возвращает текущую сумму и обнуляет счетчик.
+     */
+    public long sumThenReset() {
+        long sum = (long) BASE.getAndSet(this, 0L);
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                if (c != null) {
+                    sum += (long) CELL_VALUE.getAndSet(c, 0L);
+                }
+            }
+        }
+        return sum;
+    }
+
+    public int getCount() {
+        return (int) sum();
+    }
+
+    private void addContended(long x, int[] probe, boolean wasUncontended) {
+        boolean collide = false;
+        for (;;) {
+            Cell[] cs = cells;
+            int h = probe[0];
+            if (cs != null && cs.length > 0) {
+                Cell c = cs[h & (cs.length - 1)];
+                if (c == null) {
+                    if (cellsBusy == 0) {
+                        Cell created = new Cell(x);
+                        if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                            try {
+                                Cell[] rs = cells;
+                                int j = h & (rs.length - 1);
+                                if (rs[j] == null) {
+                                    rs[j] = created;
+                                    return;
+                                }
+                            } finally {
+                                cellsBusy = 0;
+                            }
+                            continue;
+                        }
+                    }
+                    collide = false;
+                } else if (!wasUncontended) {
+                    wasUncontended = true;
+                } else {
+                    long v = c.value;
+                    if (CELL_VALUE.compareAndSet(c, v, v + x)) {
+                        return;
+                    }
+                    if (cs != cells || cs.length >= NCPU) {
+                        collide = false;
+                    } else if (!collide) {
+                        collide = true;
+                    } else if (cellsBusy == 0 && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                        try {
+                            if (cells == cs) {
+                                Cell[] grown = new Cell[cs.length << 1];
+                                System.arraycopy(cs, 0, grown, 0, cs.length);
+                                cells = grown;
+                            }
+                        } finally {
+                            cellsBusy = 0;
+                        }
+                        collide = false;
+                        continue;
+                    }
+                }
+                probe[0] = advanceProbe(h);
+            } else if (cellsBusy == 0 && cells == cs && CELLS_BUSY.compareAndSet(this, 0, 1)) {
+                try {
+                    if (cells == cs) {
+                        Cell[] rs = new Cell[2];
+                        rs[h & 1] = new Cell(x);
+                        cells = rs;
+                        return;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+            } else {
+                long b = base;
+                if (BASE.compareAndSet(this, b, b + x)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int advanceProbe(int h) {
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        return h;
+    }
+
+    /**
+     * Ячейка, дополненная полями до размера, исключающего false sharing
+     * с соседними ячейками. Наследование фиксирует порядок полей в памяти.
+     */
+    @SuppressWarnings("unused")
+    static class CellLeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    static class CellValue extends CellLeftPadding {
+        volatile long value;
+    }
+
+    @SuppressWarnings("unused")
+    static final class Cell extends CellValue {
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        Cell(long x) {
+            value = x;
+        }
+    }
+}
@@ -1,33 +1,191 @@
 package com.multithreading.practice;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Потокобезопасный кэш с использованием ReadWriteLock.
+ *
+ * Кроме одиночных get/put кэш поддерживает составные операции:
+ * read() видит согласованное состояние нескольких ключей,
+ * write() атомарно меняет несколько ключей.
+ *
+ * Режим OPTIMISTIC построен на StampedLock: читатель сначала выполняет
+ * чтение без блокировки и проверяет штамп, а read lock берет только
+ * если во время чтения произошла запись.
+ *
+ * Режим READER_BIASED построен на ReaderBiasedLock: читатели отмечаются
+ * в собственных слотах и не пишут в общее состояние блокировки.
  */
 public class ThreadSafeCache<K, V> {
+
+    public enum LockMode {
+        /** ReentrantReadWriteLock: каждый читатель делает CAS по общему состоянию. */
+        READ_WRITE,
+        /** StampedLock: оптимистичное чтение с проверкой, read lock только при конфликте. */
+        OPTIMISTIC,
+        /** ReaderBiasedLock: читатели занимают слоты на разных кэш-линиях, писатель их дожидается. */
+        READER_BIASED
+    }
+
     private final Map<K, V> map = new ConcurrentHashMap<>();
-    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
-    
+    private final Map<K, V> readOnlyView = Collections.unmodifiableMap(map);
+    private final CacheLock lock;
+
+    public ThreadSafeCache() {
+        this(LockMode.READ_WRITE);
+    }
+
+    public ThreadSafeCache(LockMode mode) {
+        this.lock = switch (mode) {
+            case READ_WRITE -> new ReadWriteCacheLock();
+            case OPTIMISTIC -> new OptimisticCacheLock();
+            case READER_BIASED -> new ReaderBiasedCacheLock();
+        };
+    }
+
     public V get(K key) {
-        rwLock.readLock().lock();
-        try {
-            return map.get(key);
-        } finally {
-            rwLock.readLock().unlock();
-        }
+        return lock.read(() -> map.get(key));
     }
-    
+
     public void put(K key, V value) {
-        rwLock.writeLock().lock();
-        try {
-            map.put(key, value);
-        } finally {
-            rwLock.writeLock().unlock();
+        lock.write(() -> map.put(key, value));
+    }
+
+    /**
+     * Возвращает значения нескольких ключей, согласованные между собой.
+     * Отсутствующие ключи в результат не попадают.
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        return lock.read(() -> {
+            Map<K, V> result = new HashMap<>();
+            for (K key : keys) {
+                V value = map.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Выполняет чтение, которому нужен согласованный снимок нескольких записей
+     * (например, get-then-derive). В режиме OPTIMISTIC функция может быть
+     * вызвана повторно, поэтому она не должна иметь побочных эффектов.
+     */
+    public <R> R read(Function<? super Map<K, V>, ? extends R> reader) {
+        return lock.read(() -> reader.apply(readOnlyView));
+    }
+
+    /**
+     * Атомарно для читателей read()/getAll() изменяет одну или несколько записей.
+     */
+    public void write(Consumer<? super Map<K, V>> writer) {
+        lock.write(() -> writer.accept(map));
+    }
+
+    /**
+     * Стратегия блокировки, защищающая составные операции над картой.
+     */
+    interface CacheLock {
+        <R> R read(Supplier<R> action);
+
+        void write(Runnable action);
+    }
+
+    static final class ReadWriteCacheLock implements CacheLock {
+        private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+        @Override
+        public <R> R read(Supplier<R> action) {
+            rwLock.readLock().lock();
+            try {
+                return action.get();
+            } finally {
+                rwLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void write(Runnable action) {
+            rwLock.writeLock().lock();
+            try {
+                action.run();
+            } finally {
+                rwLock.writeLock().unlock();
+            }
         }
     }
-}
 
+    static final class OptimisticCacheLock implements CacheLock {
+        private final StampedLock stampedLock = new StampedLock();
+
+        @Override
+        public <R> R read(Supplier<R> action) {
+            long stamp = stampedLock.tryOptimisticRead();
+            if (stamp != 0L) {
+                try {
+                    R result = action.get();
+                    if (stampedLock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    // Исключение на несогласованных данных не считается результатом.
+                    if (stampedLock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+            }
+            stamp = stampedLock.readLock();
+            try {
+                return action.get();
+            } finally {
+                stampedLock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public void write(Runnable action) {
+            long stamp = stampedLock.writeLock();
+            try {
+                action.run();
+            } finally {
+                stampedLock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    static final class ReaderBiasedCacheLock implements CacheLock {
+        private final ReaderBiasedLock biasedLock = new ReaderBiasedLock();
+
+        @Override
+        public <R> R read(Supplier<R> action) {
+            long stamp = biasedLock.readLock();
+            try {
+                return action.get();
+            } finally {
+                biasedLock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public void write(Runnable action) {
+            biasedLock.writeLock();
+            try {
+                action.run();
+            } finally {
+                biasedLock.unlockWrite();
+            }
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.multithreading.practice;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
 import org.junit.jupiter.api.Timeout;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -19,6 +29,16 @@ import static org.junit.jupiter.api.Assertions.*;
  * 3. Реализуйте счетчик с использованием ReentrantLock
  * 4. Реализуйте кэш с использованием ReadWriteLock
  * 5. Реализуйте пул ресурсов с использованием Semaphore
+ * 6. Реализуйте счетчик с разнесением записи по ячейкам (StripedCounter)
+ * 7. Реализуйте ограниченный по размеру кэш с политикой W-TinyLFU (BoundedCache)
+ * 8. Реализуйте режим кэша с оптимистичным чтением на StampedLock
+ * 9. Реализуйте пул объектов с привязкой к потоку поверх ResourcePool (ObjectPool)
+ * 10. Реализуйте пул ресурсов с адаптивным лимитом (AdaptiveResourcePool)
+ * 11. Реализуйте блокировку, которая крутится перед парковкой (SpinThenParkLock)
+ * 12. Реализуйте загружающий кэш с одной загрузкой на ключ (LoadingCache)
+ * 13. Реализуйте режим stale-while-revalidate с фоновой перезагрузкой устаревших записей
+ * 14. Реализуйте read-write блокировку со смещением в пользу читателей (ReaderBiasedLock)
+ * 15. Реализуйте lock-free ограничитель скорости (RateLimiter)
  */
 class SynchronizationTest {
 
@@ -68,6 +88,35 @@ class SynchronizationTest {
             "Атомарный счетчик должен работать корректно");
     }
 
+    @Test
+    @Timeout(10)
+    void testStripedCounter() throws InterruptedException {
+        StripedCounter counter = new StripedCounter();
+        int threadCount = 16;
+        int incrementsPerThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        
+        for (int i = 0; i < threadCount; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < incrementsPerThread; j++) {
+                    counter.increment();
+                }
+                counter.add(5);
+            });
+        }
+        
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        
+        long expected = (long) threadCount * (incrementsPerThread + 5);
+        assertEquals(expected, counter.sum(),
+            "Полосатый счетчик не должен терять инкременты");
+        assertEquals((int) expected, counter.getCount());
+        assertEquals(expected, counter.sumThenReset(),
+            "sumThenReset должен вернуть накопленное значение");
+        assertEquals(0, counter.sum(), "После сброса счетчик должен быть равен 0");
+    }
+
     @Test
     @Timeout(10)
     void testReentrantLockCounter() throws InterruptedException {
@@ -122,6 +171,344 @@ class SynchronizationTest {
         assertNotNull(cache.get("key0_0"), "Кэш должен содержать записанные значения");
     }
 
+    @Test
+    @Timeout(30)
+    void testSpinThenParkLockCounter(TestReporter reporter) throws InterruptedException {
+        int incrementsPerThread = 100000;
+        // Сравнение с ReentrantLock на разном числе потоков
+        for (int threadCount : new int[] {1, 2, 4, 8, 16}) {
+            for (Lock lock : List.of(new ReentrantLock(), new SpinThenParkLock())) {
+                LockCounter counter = new LockCounter(lock);
+                ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+                CountDownLatch ready = new CountDownLatch(threadCount);
+                CountDownLatch start = new CountDownLatch(1);
+                
+                for (int i = 0; i < threadCount; i++) {
+                    executor.submit(() -> {
+                        ready.countDown();
+                        start.await();
+                        for (int j = 0; j < incrementsPerThread; j++) {
+                            counter.increment();
+                        }
+                        return null;
+                    });
+                }
+                
+                ready.await();
+                long startNanos = System.nanoTime();
+                start.countDown();
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+                long elapsedNanos = System.nanoTime() - startNanos;
+                
+                assertEquals(threadCount * incrementsPerThread, counter.getCount(),
+                    lock.getClass().getSimpleName() + " на " + threadCount + " потоках должен работать корректно");
+                reporter.publishEntry(lock.getClass().getSimpleName() + ", потоков " + threadCount + ", мс",
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            }
+        }
+        
+        SpinThenParkLock lock = new SpinThenParkLock();
+        assertTrue(lock.tryLock());
+        assertFalse(lock.tryLock(10, TimeUnit.MILLISECONDS), "Блокировка не реентерабельна");
+        lock.unlock();
+        assertFalse(lock.isLocked());
+        
+        // Condition: ожидающий отпускает блокировку и просыпается по signal()
+        Condition ready = lock.newCondition();
+        AtomicBoolean flag = new AtomicBoolean(false);
+        Thread waiter = new Thread(() -> {
+            lock.lock();
+            try {
+                while (!flag.get()) {
+                    ready.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        waiter.start();
+        lock.lock();
+        try {
+            flag.set(true);
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        waiter.join(5000);
+        assertFalse(waiter.isAlive(), "signalAll() должен разбудить ожидающий поток");
+        assertFalse(lock.isLocked());
+        assertThrows(IllegalMonitorStateException.class, ready::signal,
+            "signal() без владения блокировкой недопустим");
+    }
+
+    @Test
+    @Timeout(10)
+    void testOptimisticReadCache() throws InterruptedException {
+        ThreadSafeCache<String, Integer> cache = new ThreadSafeCache<>(ThreadSafeCache.LockMode.OPTIMISTIC);
+        cache.write(map -> {
+            map.put("a", 0);
+            map.put("b", 0);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        AtomicInteger inconsistentReads = new AtomicInteger(0);
+        
+        // Писатель меняет два ключа так, что их сумма всегда равна 0
+        executor.submit(() -> {
+            for (int i = 1; i <= 1000; i++) {
+                final int value = i;
+                cache.write(map -> {
+                    map.put("a", value);
+                    map.put("b", -value);
+                });
+            }
+        });
+        
+        // Читатели не должны увидеть половину записи
+        for (int i = 0; i < 5; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    int sum = cache.read(map -> map.get("a") + map.get("b"));
+                    Map<String, Integer> both = cache.getAll(List.of("a", "b"));
+                    if (sum != 0 || both.get("a") + both.get("b") != 0) {
+                        inconsistentReads.incrementAndGet();
+                    }
+                }
+            });
+        }
+        
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        
+        assertEquals(0, inconsistentReads.get(), "Оптимистичное чтение должно быть согласованным");
+        assertEquals(1000, cache.get("a"));
+        assertEquals(-1000, cache.get("b"));
+    }
+
+    @Test
+    @Timeout(30)
+    void testReaderBiasedCache(TestReporter reporter) throws InterruptedException {
+        // Сравнение с ReentrantReadWriteLock на разном числе читателей
+        for (int readerCount : new int[] {1, 4, 16, 64}) {
+            for (ThreadSafeCache.LockMode mode : List.of(
+                    ThreadSafeCache.LockMode.READ_WRITE, ThreadSafeCache.LockMode.READER_BIASED)) {
+                ThreadSafeCache<String, Integer> cache = new ThreadSafeCache<>(mode);
+                cache.write(map -> {
+                    map.put("a", 0);
+                    map.put("b", 0);
+                });
+                ExecutorService executor = Executors.newFixedThreadPool(readerCount + 1);
+                AtomicInteger inconsistentReads = new AtomicInteger(0);
+                CountDownLatch ready = new CountDownLatch(readerCount + 1);
+                CountDownLatch start = new CountDownLatch(1);
+                
+                executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    for (int i = 1; i <= 200; i++) {
+                        final int value = i;
+                        cache.write(map -> {
+                            map.put("a", value);
+                            map.put("b", -value);
+                        });
+                    }
+                    return null;
+                });
+                for (int i = 0; i < readerCount; i++) {
+                    executor.submit(() -> {
+                        ready.countDown();
+                        start.await();
+                        for (int j = 0; j < 2000; j++) {
+                            if (cache.read(map -> map.get("a") + map.get("b")) != 0) {
+                                inconsistentReads.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    });
+                }
+                
+                ready.await();
+                long startNanos = System.nanoTime();
+                start.countDown();
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+                long elapsedNanos = System.nanoTime() - startNanos;
+                
+                assertEquals(0, inconsistentReads.get(),
+                    mode + " на " + readerCount + " читателях должен давать согласованное чтение");
+                assertEquals(200, cache.get("a"));
+                reporter.publishEntry(mode + ", читателей " + readerCount + ", мс",
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            }
+        }
+        
+        ReaderBiasedLock lock = new ReaderBiasedLock();
+        long stamp = lock.readLock();
+        assertNotEquals(0L, stamp, "При включенном смещении чтение не трогает общее состояние");
+        lock.unlockRead(stamp);
+        lock.writeLock();
+        assertFalse(lock.isReadBiased(), "Писатель снимает смещение");
+        lock.unlockWrite();
+    }
+
+    @Test
+    @Timeout(10)
+    void testLoadingCacheSingleFlight() throws InterruptedException {
+        LoadingCache<String, String> cache = new LoadingCache<>();
+        AtomicInteger loads = new AtomicInteger(0);
+        int threadCount = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        
+        // Все потоки одновременно промахиваются по одному ключу
+        for (int i = 0; i < threadCount; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get("hot", key -> {
+                    loads.incrementAndGet();
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "value-" + key;
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            try {
+                assertEquals("value-hot", result.get());
+            } catch (ExecutionException e) {
+                fail(e);
+            }
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get(), "Загрузчик должен вызываться один раз на ключ");
+        
+        // Промахи getAll объединяются в один вызов пакетного загрузчика
+        AtomicInteger bulkLoads = new AtomicInteger(0);
+        List<String> keys = List.of("hot", "a", "b", "c");
+        Map<String, String> values = cache.getAll(keys, misses -> {
+            bulkLoads.incrementAndGet();
+            assertEquals(Set.of("a", "b", "c"), misses, "Закэшированные ключи не загружаются");
+            Map<String, String> loaded = new HashMap<>();
+            for (String key : misses) {
+                loaded.put(key, "value-" + key);
+            }
+            return loaded;
+        });
+        
+        assertEquals(1, bulkLoads.get());
+        assertEquals(List.of("hot", "a", "b", "c"), new ArrayList<>(values.keySet()));
+        assertEquals("value-b", cache.getIfPresent("b"));
+        assertEquals(0, cache.getInFlightCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testLoadingCacheRefreshAhead() throws InterruptedException {
+        ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+        LoadingCache<String, String> cache = new LoadingCache<>(
+            new ThreadSafeCache<>(), Duration.ofMillis(100), refreshExecutor);
+        AtomicInteger version = new AtomicInteger(0);
+        CountDownLatch reloadStarted = new CountDownLatch(1);
+        CountDownLatch allowReload = new CountDownLatch(1);
+        
+        assertEquals("v1", cache.get("config", key -> "v" + version.incrementAndGet()));
+        Thread.sleep(150);
+        
+        // Устаревшая запись возвращается сразу, перезагрузка идет в фоне
+        String stale = cache.get("config", key -> {
+            reloadStarted.countDown();
+            try {
+                allowReload.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "v" + version.incrementAndGet();
+        });
+        assertEquals("v1", stale, "Читатель не должен ждать перезагрузку");
+        assertTrue(reloadStarted.await(1, TimeUnit.SECONDS));
+        // Пока идет перезагрузка, повторные чтения не запускают новую
+        assertEquals("v1", cache.get("config", key -> fail("Вторая перезагрузка не нужна")));
+        allowReload.countDown();
+        
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!"v2".equals(cache.getIfPresent("config")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("v2", cache.getIfPresent("config"), "После перезагрузки должно быть новое значение");
+        
+        // Упавшая перезагрузка оставляет старое значение
+        Thread.sleep(150);
+        assertEquals("v2", cache.get("config", key -> {
+            throw new IllegalStateException("Источник недоступен");
+        }));
+        
+        // Медленная перезагрузка не затирает значение, записанное через put() во время нее.
+        // Исполнитель однопоточный: когда она стартует, упавшая уже завершилась.
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch finishSlow = new CountDownLatch(1);
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (slowStarted.getCount() > 0 && System.nanoTime() < deadline) {
+            cache.get("config", key -> {
+                slowStarted.countDown();
+                try {
+                    finishSlow.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "outdated";
+            });
+            Thread.sleep(10);
+        }
+        assertTrue(slowStarted.await(1, TimeUnit.SECONDS));
+        assertEquals("v2", cache.getIfPresent("config"), "При ошибке должно остаться старое значение");
+        cache.put("config", "manual");
+        finishSlow.countDown();
+        refreshExecutor.shutdown();
+        assertTrue(refreshExecutor.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals("manual", cache.getIfPresent("config"),
+            "Перезагрузка, начатая до put(), не должна затирать новое значение");
+        
+        cache.invalidate("config");
+        assertNull(cache.getIfPresent("config"));
+    }
+
+    @Test
+    @Timeout(10)
+    void testBoundedCacheWTinyLfu() throws InterruptedException {
+        BoundedCache<String, String> cache = new BoundedCache<>(100);
+        cache.put("hot", "value");
+        for (int i = 0; i < 50; i++) {
+            assertEquals("value", cache.get("hot"));
+        }
+        
+        // Проход по большому числу ключей не должен вытеснить горячий ключ,
+        // даже если между обращениями к нему проходит больше записей, чем вмещает кэш
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            final int id = i;
+            executor.submit(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    cache.put("scan" + id + "_" + j, "v");
+                    if (j % 500 == 0) {
+                        cache.get("hot");
+                    }
+                }
+            });
+        }
+        
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        cache.cleanUp();
+        
+        assertTrue(cache.size() <= 100, "Размер кэша не должен превышать максимум");
+        assertEquals("value", cache.get("hot"), "Частый ключ должен пережить сканирование");
+    }
+
     @Test
     @Timeout(10)
     void testSemaphoreResourcePool() throws InterruptedException {
@@ -152,6 +539,192 @@ class SynchronizationTest {
             "Все ресурсы должны быть освобождены");
     }
 
+    @Test
+    @Timeout(10)
+    void testObjectPool() throws Exception {
+        AtomicInteger created = new AtomicInteger(0);
+        AtomicInteger destroyed = new AtomicInteger(0);
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(3,
+            () -> {
+                created.incrementAndGet();
+                return new StringBuilder();
+            },
+            sb -> sb.length() < 1000,
+            sb -> destroyed.incrementAndGet(),
+            Duration.ZERO);
+        
+        // Поток получает обратно объект, который вернул последним
+        StringBuilder first;
+        try (ObjectPool<StringBuilder>.Lease lease = pool.borrow(1, TimeUnit.SECONDS)) {
+            first = lease.get();
+        }
+        try (ObjectPool<StringBuilder>.Lease lease = pool.borrow(1, TimeUnit.SECONDS)) {
+            assertSame(first, lease.get(), "Должен вернуться объект, привязанный к потоку");
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        AtomicInteger maxActive = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 20; j++) {
+                        try (ObjectPool<StringBuilder>.Lease lease = pool.borrow(5, TimeUnit.SECONDS)) {
+                            maxActive.accumulateAndGet(pool.getActiveCount(), Math::max);
+                            lease.get().setLength(0);
+                            lease.get().append(j);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        
+        latch.await();
+        executor.shutdown();
+        
+        assertTrue(maxActive.get() <= 3, "Одновременно выдано не больше 3 объектов");
+        assertTrue(created.get() <= 3, "Пул не должен создавать лишние объекты");
+        assertEquals(0, pool.getActiveCount(), "Все объекты должны быть возвращены");
+        
+        // Пул исчерпан - borrow должен завершиться по тайм-ауту
+        ObjectPool<StringBuilder>.Lease a = pool.borrow(1, TimeUnit.SECONDS);
+        ObjectPool<StringBuilder>.Lease b = pool.borrow(1, TimeUnit.SECONDS);
+        ObjectPool<StringBuilder>.Lease c = pool.borrow(1, TimeUnit.SECONDS);
+        assertThrows(TimeoutException.class, () -> pool.borrow(100, TimeUnit.MILLISECONDS));
+        a.close();
+        b.close();
+        c.close();
+        
+        // С maxIdle = 0 все свободные объекты вытесняются
+        int sizeBefore = pool.getSize();
+        assertEquals(sizeBefore, pool.evictIdle());
+        assertEquals(0, pool.getSize());
+        assertEquals(sizeBefore, destroyed.get());
+        pool.close();
+        
+        // Исключение в validator не должно оставлять объект выданным навсегда
+        AtomicBoolean failValidation = new AtomicBoolean(false);
+        ObjectPool<StringBuilder> fragile = new ObjectPool<>(1, StringBuilder::new,
+            sb -> {
+                if (failValidation.get()) {
+                    throw new IllegalStateException("validator");
+                }
+                return true;
+            },
+            sb -> { },
+            Duration.ofMinutes(1));
+        ObjectPool<StringBuilder>.Lease broken = fragile.borrow(1, TimeUnit.SECONDS);
+        failValidation.set(true);
+        assertThrows(IllegalStateException.class, broken::close);
+        failValidation.set(false);
+        assertEquals(0, fragile.getSize(), "Объект с ошибкой проверки должен быть уничтожен");
+        try (ObjectPool<StringBuilder>.Lease lease = fragile.borrow(1, TimeUnit.SECONDS)) {
+            assertNotNull(lease.get());
+            assertThrows(TimeoutException.class, () -> fragile.borrow(100, TimeUnit.MILLISECONDS));
+        }
+        fragile.close();
+    }
+
+    @Test
+    @Timeout(20)
+    void testAdaptiveResourcePool() throws InterruptedException {
+        AdaptiveResourcePool aimd = new AdaptiveResourcePool(
+            new AdaptiveResourcePool.Aimd(Duration.ofMillis(15), 0.9), 4, 2, 30);
+        assertLimitFollowsLatency(aimd);
+        
+        AdaptiveResourcePool gradient = new AdaptiveResourcePool(
+            new AdaptiveResourcePool.Gradient(), 4, 2, 30);
+        assertLimitFollowsLatency(gradient);
+    }
+
+    /**
+     * Имитирует нижестоящий сервис, который сначала отвечает за 2 мс, а затем
+     * замедляется до 40 мс. Лимит должен вырасти на быстрой фазе и упасть на медленной.
+     */
+    private void assertLimitFollowsLatency(AdaptiveResourcePool pool) throws InterruptedException {
+        AtomicInteger latencyMillis = new AtomicInteger(2);
+        AtomicInteger maxInFlight = new AtomicInteger(0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        int clients = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            executor.submit(() -> {
+                while (running.get()) {
+                    try (AdaptiveResourcePool.Permit permit = pool.acquire()) {
+                        maxInFlight.accumulateAndGet(pool.getActiveCount(), Math::max);
+                        Thread.sleep(latencyMillis.get());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        
+        Thread.sleep(1500);
+        int fastLimit = pool.getLimit();
+        latencyMillis.set(40);
+        Thread.sleep(1500);
+        int slowLimit = pool.getLimit();
+        
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        
+        assertTrue(fastLimit > 4, "На быстрой фазе лимит должен вырасти: " + fastLimit);
+        assertTrue(slowLimit < fastLimit,
+            "При росте задержки лимит должен уменьшиться: " + fastLimit + " -> " + slowLimit);
+        assertTrue(maxInFlight.get() <= 30, "Число занятых ресурсов не должно превышать maxLimit");
+        assertEquals(0, pool.getActiveCount(), "Все ресурсы должны быть освобождены");
+    }
+
+    @Test
+    @Timeout(10)
+    void testRateLimiter() throws Exception {
+        RateLimiter limiter = new RateLimiter(100, 10);
+        
+        // После простоя доступен весь запас burstCapacity
+        assertTrue(limiter.tryAcquire(10), "Полное ведро должно отдать burstCapacity разрешений");
+        assertFalse(limiter.tryAcquire(), "Пустое ведро не должно выдавать разрешения");
+        assertTrue(limiter.acquire(1, 200, TimeUnit.MILLISECONDS),
+            "Разрешение должно накопиться за 10 мс");
+        assertFalse(limiter.acquire(10, 10, TimeUnit.MILLISECONDS),
+            "10 разрешений не накопятся за 10 мс");
+        
+        long start = System.nanoTime();
+        limiter.acquireAsync(5).get(1, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30),
+            "Асинхронное разрешение должно выдаваться не раньше, чем накопится");
+        
+        // Под конкуренцией скорость не превышает заданную
+        RateLimiter concurrent = new RateLimiter(200, 20);
+        AtomicInteger granted = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        long begin = System.nanoTime();
+        long runNanos = TimeUnit.MILLISECONDS.toNanos(500);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                while (System.nanoTime() - begin < runNanos) {
+                    if (concurrent.tryAcquire()) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        double elapsedSeconds = (System.nanoTime() - begin) / 1e9;
+        
+        assertTrue(granted.get() <= 20 + 200 * elapsedSeconds + 1,
+            "Выдано слишком много разрешений: " + granted.get());
+        assertTrue(granted.get() >= 20 + 200 * 0.5 * 0.8,
+            "Выдано слишком мало разрешений: " + granted.get());
+    }
+
     @Test
     @Timeout(10)
     void testCountDownLatch() throws InterruptedException {
@@ -0,0 +1,307 @@
+package com.multithreading.practice;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Исполнитель из нескольких циклов событий (event loop), по одному потоку на ядро,
+ * для коротких неблокирующих задач (разбор, маршрутизация, колбэки).
+ *
+ * В пуле с общей очередью каждый колбэк цепочки может попасть на другой поток:
+ * передача между потоками и промахи кэша стоят дороже самой работы. Здесь у
+ * каждого цикла свой поток, и задачи выполняются до конца (run-to-completion)
+ * без вытеснения другими задачами этого цикла:
+ * - задача, отправленная из потока цикла в тот же цикл, кладется в его локальную
+ *   очередь без синхронизации - цепочка колбэков остается на одном потоке;
+ * - задача из другого потока попадает во входящую MPSC-очередь цикла
+ *   (много производителей, один потребитель), которую цикл разбирает пачками.
+ *
+ * Java не дает привязать поток к ядру без нативного кода, поэтому привязка
+ * логическая: задачи с одним ключом (loopFor) или из одного цикла всегда
+ * выполняются одним и тем же потоком.
+ *
+ * Задачи не должны блокироваться: заблокированная задача останавливает весь цикл.
+ */
+public class EventLoopExecutor implements Executor, AutoCloseable {
+    /** Сколько задач цикл выполняет, прежде чем снова заглянуть во входящую очередь. */
+    private static final int BATCH_SIZE = 256;
+
+    private final EventLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger(0);
+    private volatile boolean closed;
+
+    public EventLoopExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EventLoopExecutor(int loopCount) {
+        if (loopCount <= 0) {
+            throw new IllegalArgumentException("loopCount должен быть больше 0");
+        }
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * Выполняет задачу в текущем цикле, если вызов сделан из потока цикла,
+     * иначе - в следующем цикле по кругу.
+     */
+    @Override
+    public void execute(Runnable task) {
+        EventLoop current = currentLoop();
+        (current != null ? current : next()).execute(task);
+    }
+
+    /**
+     * Следующий цикл по кругу - для новых независимых цепочек задач.
+     */
+    public EventLoop next() {
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+
+    /**
+     * Цикл, закрепленный за ключом: все задачи с этим ключом выполняются
+     * одним потоком в порядке отправки.
+     */
+    public EventLoop loopFor(Object key) {
+        return loops[Math.floorMod(key.hashCode(), loops.length)];
+    }
+
+    public int getLoopCount() {
+        return loops.length;
+    }
+
+    /**
+     * Останавливает циклы. Задачи, отправленные до вызова, выполняются.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (EventLoop loop : loops) {
+            LockSupport.unpark(loop.thread);
+        }
+    }
+
+    /**
+     * Дожидается остановки всех циклов после close().
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (EventLoop loop : loops) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return false;
+            }
+            loop.thread.join(remainingMillis);
+            if (loop.thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Цикл текущего потока, если это поток цикла этого исполнителя. Поток цикла
+     * сам знает свой цикл, поэтому проверка не зависит от числа циклов.
+     */
+    private EventLoop currentLoop() {
+        return Thread.currentThread() instanceof LoopThread thread && thread.loop.owner() == this
+            ? thread.loop
+            : null;
+    }
+
+    /**
+     * Поток цикла событий.
+     */
+    private static final class LoopThread extends Thread {
+        private final EventLoop loop;
+
+        LoopThread(EventLoop loop, String name) {
+            super(name);
+            this.loop = loop;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            loop.run();
+        }
+    }
+
+    /**
+     * Один цикл событий. Это Executor, поэтому цепочку CompletableFuture можно
+     * привязать к нему: thenApplyAsync(fn, loop).
+     */
+    public final class EventLoop implements Executor {
+        private final Thread thread;
+        private final MpscQueue inbox = new MpscQueue();
+        /** Задачи, отправленные из самого цикла. Доступна только потоку цикла. */
+        private final ArrayDeque<Runnable> local = new ArrayDeque<>();
+        /** true, пока поток цикла спит или собирается заснуть. */
+        private final AtomicBoolean wakeupNeeded = new AtomicBoolean(false);
+        /**
+         * Сколько потоков сейчас внутри execute() между проверкой closed и
+         * добавлением во входящую очередь. Цикл не завершается, пока он не 0.
+         */
+        private final AtomicInteger submitters = new AtomicInteger(0);
+
+        private EventLoop(int index) {
+            this.thread = new LoopThread(this, "event-loop-" + index);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (task == null) {
+                throw new NullPointerException();
+            }
+            if (inEventLoop()) {
+                // Цепочка, начатая до close(), доводится до конца.
+                local.addLast(task);
+                return;
+            }
+            // Счетчик увеличивается до проверки closed: цикл, который увидел
+            // closed и нулевой счетчик, знает, что все принятые задачи уже в очереди,
+            // а остальные производители увидят closed и получат отказ.
+            submitters.incrementAndGet();
+            try {
+                if (closed) {
+                    throw new RejectedExecutionException("EventLoopExecutor остановлен");
+                }
+                inbox.offer(task);
+            } finally {
+                submitters.decrementAndGet();
+            }
+            if (wakeupNeeded.compareAndSet(true, false)) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        public boolean inEventLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        private EventLoopExecutor owner() {
+            return EventLoopExecutor.this;
+        }
+
+        private void run() {
+            for (;;) {
+                boolean worked = drainInbox() | runLocal();
+                if (worked) {
+                    continue;
+                }
+                if (closed) {
+                    if (submitters.get() == 0 && inbox.isEmpty()) {
+                        return;
+                    }
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // Объявляем, что засыпаем, и проверяем очередь еще раз: задача,
+                // добавленная после проверки, увидит флаг и разбудит поток.
+                wakeupNeeded.set(true);
+                if (inbox.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                wakeupNeeded.set(false);
+            }
+        }
+
+        /**
+         * Переносит пачку задач из входящей очереди в локальную.
+         */
+        private boolean drainInbox() {
+            boolean drained = false;
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable task = inbox.poll();
+                if (task == null) {
+                    break;
+                }
+                local.addLast(task);
+                drained = true;
+            }
+            return drained;
+        }
+
+        /**
+         * Выполняет не больше BATCH_SIZE локальных задач, чтобы бесконечная
+         * цепочка колбэков не задерживала входящие задачи.
+         */
+        private boolean runLocal() {
+            boolean ran = false;
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable task = local.pollFirst();
+                if (task == null) {
+                    break;
+                }
+                ran = true;
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    // Ошибка одной задачи не должна останавливать цикл.
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+            return ran;
+        }
+    }
+
+    /**
+     * Неограниченная MPSC-очередь (вариант Вьюкова). Производитель делает один
+     * getAndSet по хвосту, потребитель читает голову без атомарных операций.
+     */
+    static final class MpscQueue {
+        private static final class Node {
+            private volatile Node next;
+            private Runnable value;
+        }
+
+        private final AtomicReference<Node> tail;
+        /** Заглушка перед первым элементом. Меняет только потребитель. */
+        private Node head;
+
+        MpscQueue() {
+            Node stub = new Node();
+            this.head = stub;
+            this.tail = new AtomicReference<>(stub);
+        }
+
+        void offer(Runnable task) {
+            Node node = new Node();
+            node.value = task;
+            Node previous = tail.getAndSet(node);
+            // До этой записи потребитель видит хвост, но еще не видит связь с ним.
+            previous.next = node;
+        }
+
+        /**
+         * Вызывается только потребителем. Может вернуть null, пока производитель
+         * находится между getAndSet и записью next; isEmpty() при этом вернет false.
+         */
+        Runnable poll() {
+            Node next = head.next;
+            if (next == null) {
+                return null;
+            }
+            Runnable task = next.value;
+            next.value = null;
+            head = next;
+            return task;
+        }
+
+        boolean isEmpty() {
+            return tail.get() == head;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.multithreading.practice;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Обработка задач с упорядочиванием по ключу: задачи одного ключа выполняются
+ * строго последовательно в порядке поступления, задачи разных ключей - параллельно.
+ *
+ * Глобальная блокировка сериализует все ключи, а отдельный поток на партицию
+ * простаивает, если нагрузка на партиции неравномерна. Здесь у каждого ключа
+ * есть легкая очередь (lane), а выполняет ее любой поток общего пула. Lane
+ * существует только пока у ключа есть работа: она создается первой задачей
+ * и удаляется, когда очередь опустела, так что память не растет с числом
+ * когда-либо встречавшихся ключей.
+ *
+ * Lane находится в карте тогда и только тогда, когда ее кто-то выполняет.
+ * Создание, добавление задачи и удаление пустой lane делаются внутри
+ * ConcurrentHashMap.compute(), поэтому задача не может попасть в lane,
+ * которую уже удалили.
+ *
+ * После shutdownGracefully() новые задачи отклоняются, а принятые выполняются:
+ * lane, которую завершающийся собственный пул не принял повторно, дорабатывает
+ * поток, выполнявший ее до этого.
+ */
+public class KeyedTaskProcessor<K> {
+    /** Сколько задач lane выполняет подряд, прежде чем уступить поток другим ключам. */
+    private static final int MAX_BATCH = 32;
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Map<K, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Создает собственный пул фиксированного размера.
+     */
+    public KeyedTaskProcessor(int threadPoolSize) {
+        this(Executors.newFixedThreadPool(threadPoolSize), true);
+    }
+
+    /**
+     * @param executor общий пул, на котором выполняются lane; закрывает его вызывающий
+     */
+    public KeyedTaskProcessor(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private KeyedTaskProcessor(ExecutorService executor, boolean ownsExecutor) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Ставит задачу в очередь ключа. Она начнется только после завершения
+     * всех ранее поставленных задач этого ключа.
+     *
+     * @param key ключ упорядочивания (например, идентификатор сущности)
+     * @param task задача для выполнения
+     * @return Future с результатом выполнения задачи
+     * @throws RejectedExecutionException если вызван shutdownGracefully()
+     */
+    public <T> Future<T> processTask(K key, Callable<T> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("KeyedTaskProcessor завершен");
+        }
+        FutureTask<T> future = new FutureTask<>(task);
+        Lane[] created = new Lane[1];
+        lanes.compute(key, (k, lane) -> {
+            if (lane == null) {
+                created[0] = new Lane(future);
+                return created[0];
+            }
+            lane.queue.add(future);
+            return lane;
+        });
+        if (created[0] != null) {
+            schedule(key, created[0]);
+        }
+        return future;
+    }
+
+    /**
+     * Число ключей, у которых сейчас есть невыполненные задачи.
+     */
+    public int getActiveKeyCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Завершает собственный пул, дожидаясь выполнения всех принятых задач,
+     * в том числе стоящих в очередях ключей.
+     *
+     * @throws IllegalStateException если пул передан извне
+     */
+    public boolean shutdownGracefully(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!ownsExecutor) {
+            throw new IllegalStateException("Общим пулом управляет вызывающий");
+        }
+        shutdown = true;
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private void schedule(K key, Lane lane) {
+        try {
+            executor.execute(() -> runLane(key, lane));
+        } catch (RejectedExecutionException e) {
+            // Пул не принял lane: ее задачи не выполнятся никогда, отменяем их.
+            // После удаления из карты новые задачи в эту lane не попадут.
+            lanes.remove(key, lane);
+            lane.current.cancel(false);
+            lane.queue.forEach(future -> future.cancel(false));
+            throw e;
+        }
+    }
+
+    private void runLane(K key, Lane lane) {
+        for (;;) {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                // Исключение задачи сохраняется в ее Future и не прерывает lane.
+                lane.current.run();
+                if (!advance(key, lane)) {
+                    return;
+                }
+            }
+            if (!ownsExecutor) {
+                schedule(key, lane);
+                return;
+            }
+            try {
+                executor.execute(() -> runLane(key, lane));
+                return;
+            } catch (RejectedExecutionException e) {
+                // Собственный пул завершается: уступать поток некому, дорабатываем
+                // lane здесь. awaitTermination() дождется этого потока.
+            }
+        }
+    }
+
+    /**
+     * Берет следующую задачу lane или удаляет lane из карты, если задач нет.
+     *
+     * @return false, если lane опустела и удалена
+     */
+    private boolean advance(K key, Lane lane) {
+        lanes.compute(key, (k, current) -> {
+            lane.current = lane.queue.poll();
+            return lane.current == null ? null : lane;
+        });
+        return lane.current != null;
+    }
+
+    /**
+     * Очередь задач одного ключа. Поля меняются только внутри compute()
+     * по ключу lane или потоком, который ее выполняет.
+     */
+    private static final class Lane {
+        private final Queue<FutureTask<?>> queue = new ArrayDeque<>();
+        private FutureTask<?> current;
+
+        Lane(FutureTask<?> first) {
+            this.current = first;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.multithreading.practice;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free гистограмма длительностей с лог-линейными корзинами.
+ *
+ * Каждая степень двойки делится на SUB_BUCKETS равных корзин, поэтому
+ * относительная погрешность не превышает 1 / SUB_BUCKETS (12.5%) на любом
+ * масштабе - от наносекунд до часов - при фиксированных ~500 счетчиках.
+ * Запись - это вычисление индекса по старшему биту и один атомарный инкремент,
+ * без блокировок и без аллокаций.
+ *
+ * Перцентили считаются по текущим счетчикам без остановки записи, поэтому
+ * при конкурентной записи результат приблизительный.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Записывает длительность в наносекундах. Отрицательные значения считаются нулем.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(0L, nanos)));
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Значение, не меньше которого оказались (1 - quantile) записей.
+     *
+     * @param quantile доля от 0 до 1, например 0.99 для p99
+     * @return верхняя граница корзины, в которую попал перцентиль, или 0, если записей нет
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        return percentile(snapshot, addCountsTo(snapshot), quantile);
+    }
+
+    /**
+     * Прибавляет текущие счетчики к target, чтобы объединить несколько гистограмм.
+     *
+     * @param target массив длины bucketCount()
+     * @return сколько записей прибавлено
+     */
+    long addCountsTo(long[] target) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            target[i] += count;
+            total += count;
+        }
+        return total;
+    }
+
+    static int bucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    /**
+     * Перцентиль по снимку счетчиков, собранному addCountsTo().
+     */
+    static long percentile(long[] snapshot, long total, double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile должен быть в диапазоне [0, 1]");
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -1,51 +1,439 @@
 package com.multithreading.practice;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Класс для параллельной обработки данных.
- * 
+ *
  * Задание: Реализуйте метод processInParallel так, чтобы все тесты проходили.
- * 
+ *
  * Подсказки:
  * - Используйте ExecutorService для параллельного выполнения
  * - Преобразуйте каждый элемент входного списка в задачу
  * - Соберите результаты из Future
+ *
+ * Создавать пул на каждый вызов и отдельный Future на каждый элемент дорого:
+ * для мелких преобразований накладные расходы превышают саму работу.
+ * Поэтому пул общий и долгоживущий, а вход делится на непрерывные
+ * диапазоны (чанки). Рабочие потоки по очереди забирают следующий чанк
+ * через AtomicInteger и пишут результаты в общий массив по индексу,
+ * так что порядок выхода совпадает с порядком входа. Вызывающий поток
+ * обрабатывает чанки наравне с рабочими и не ждет рабочих, которые еще
+ * стоят в очереди пула, когда чанки закончились.
+ *
+ * Для входа неизвестной длины есть потоковый режим processStream(): в работе
+ * находится не больше maxInFlight элементов, результаты выдаются в порядке
+ * входа, как только завершится голова окна. Память не зависит от размера входа.
+ *
+ * Для числовых массивов есть перегрузки для int[], long[] и double[] с
+ * примитивными функциями (IntUnaryOperator и т.д.). Они делят массив на те же
+ * диапазоны индексов и пишут результаты в заранее выделенный примитивный
+ * массив, без упаковки элементов и промежуточных объектов.
  */
 public class ParallelProcessor {
-    
+    /** Меньше этого чанк не делаем: накладные расходы на передачу работы должны окупаться. */
+    private static final int MIN_CHUNK_SIZE = 1024;
+    /** Сколько чанков приходится на один поток - запас для выравнивания нагрузки. */
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** Параллельность перегрузок для массивов: вычислительная работа, по потоку на ядро. */
+    private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Общий пул по умолчанию: по потоку на ядро на все вызовы сразу, лишние задачи
+     * ждут в очереди. Простаивающие потоки завершаются через минуту, потоки-демоны
+     * не мешают завершению JVM.
+     */
+    private static final ExecutorService SHARED_POOL = createSharedPool();
+
+    private final ExecutorService executor;
+
+    public ParallelProcessor() {
+        this(SHARED_POOL);
+    }
+
+    private static ExecutorService createSharedPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            DEFAULT_PARALLELISM, DEFAULT_PARALLELISM, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "parallel-processor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * @param executor долгоживущий пул, на котором выполняются чанки; закрывает его вызывающий
+     */
+    public ParallelProcessor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
     /**
      * Обрабатывает список элементов параллельно, применяя функцию к каждому элементу.
-     * 
+     *
      * @param input входной список элементов
      * @param processor функция для обработки каждого элемента
-     * @param threadPoolSize размер пула потоков
-     * @return список обработанных элементов
+     * @param threadPoolSize максимальное число потоков, одновременно обрабатывающих вход;
+     *                       общий пул дает не больше потока на ядро плюс вызывающий поток
+     * @return изменяемый список обработанных элементов в порядке входа
      * @throws InterruptedException если поток был прерван
      */
-    public <T, R> List<R> processInParallel(List<T> input, 
-                                           java.util.function.Function<T, R> processor,
+    public <T, R> List<R> processInParallel(List<T> input,
+                                           Function<T, R> processor,
                                            int threadPoolSize) throws InterruptedException {
-        ExecutorService executor = Executors.newFixedThreadPool(threadPoolSize);
-        try {
-            List<Future<R>> futures = input.stream()
-                .map(item -> executor.submit(() -> processor.apply(item)))
-                .collect(Collectors.toList());
-            
-            return futures.stream()
-                .map(future -> {
-                    try {
-                        return future.get();
-                    } catch (ExecutionException | InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                })
-                .collect(Collectors.toList());
-        } finally {
-            executor.shutdown();
+        int size = input.size();
+        @SuppressWarnings("unchecked")
+        List<T> source = input instanceof RandomAccess ? input : (List<T>) Arrays.asList(input.toArray());
+        Object[] results = new Object[size];
+
+        processRanges(size, threadPoolSize, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = processor.apply(source.get(i));
+            }
+        });
+
+        return toList(results);
+    }
+
+    /**
+     * Применяет функцию к каждому элементу массива параллельно на всех ядрах.
+     *
+     * @return новый массив результатов той же длины
+     */
+    public int[] processInParallel(int[] input, IntUnaryOperator processor) throws InterruptedException {
+        int[] output = new int[input.length];
+        processInParallel(input, output, processor);
+        return output;
+    }
+
+    /**
+     * Применяет функцию к каждому элементу массива и пишет результаты в output.
+     * output может совпадать с input.
+     */
+    public void processInParallel(int[] input, int[] output, IntUnaryOperator processor)
+            throws InterruptedException {
+        checkLength(input.length, output.length);
+        processRanges(input.length, DEFAULT_PARALLELISM, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                output[i] = processor.applyAsInt(input[i]);
+            }
+        });
+    }
+
+    public long[] processInParallel(long[] input, LongUnaryOperator processor) throws InterruptedException {
+        long[] output = new long[input.length];
+        processInParallel(input, output, processor);
+        return output;
+    }
+
+    public void processInParallel(long[] input, long[] output, LongUnaryOperator processor)
+            throws InterruptedException {
+        checkLength(input.length, output.length);
+        processRanges(input.length, DEFAULT_PARALLELISM, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                output[i] = processor.applyAsLong(input[i]);
+            }
+        });
+    }
+
+    public double[] processInParallel(double[] input, DoubleUnaryOperator processor) throws InterruptedException {
+        double[] output = new double[input.length];
+        processInParallel(input, output, processor);
+        return output;
+    }
+
+    public void processInParallel(double[] input, double[] output, DoubleUnaryOperator processor)
+            throws InterruptedException {
+        checkLength(input.length, output.length);
+        processRanges(input.length, DEFAULT_PARALLELISM, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                output[i] = processor.applyAsDouble(input[i]);
+            }
+        });
+    }
+
+    /**
+     * Преобразует числовой массив в список объектов. Вход читается без упаковки.
+     * Отдельное имя нужно потому, что лямбда x -> ... подходит и под
+     * IntUnaryOperator, и под IntFunction, и перегрузка была бы неоднозначной.
+     */
+    public <R> List<R> processInParallelToObj(int[] input, IntFunction<R> processor) throws InterruptedException {
+        Object[] results = new Object[input.length];
+        processRanges(input.length, DEFAULT_PARALLELISM, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = processor.apply(input[i]);
+            }
+        });
+        return toList(results);
+    }
+
+    public <R> List<R> processInParallelToObj(long[] input, LongFunction<R> processor) throws InterruptedException {
+        Object[] results = new Object[input.length];
+        processRanges(input.length, DEFAULT_PARALLELISM, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = processor.apply(input[i]);
+            }
+        });
+        return toList(results);
+    }
+
+    public <R> List<R> processInParallelToObj(double[] input, DoubleFunction<R> processor)
+            throws InterruptedException {
+        Object[] results = new Object[input.length];
+        processRanges(input.length, DEFAULT_PARALLELISM, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = processor.apply(input[i]);
+            }
+        });
+        return toList(results);
+    }
+
+    /**
+     * Обрабатывает вход неизвестной длины с ограниченным окном.
+     * Элементы читаются из input по мере того, как потребитель забирает результаты.
+     *
+     * @param input источник элементов
+     * @param processor функция для обработки каждого элемента
+     * @param maxInFlight сколько элементов может обрабатываться одновременно
+     * @return итератор результатов в порядке входа; ошибка обработки элемента
+     *         выбрасывается из next() как RuntimeException, после чего итератор
+     *         пуст и вход больше не читается
+     */
+    public <T, R> Iterator<R> processStream(Iterator<T> input, Function<T, R> processor, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight должен быть больше 0");
         }
+        return new OrderedWindowIterator<>(executor, input, processor, maxInFlight);
+    }
+
+    /**
+     * Потоковый вариант для Stream. Закрытие результата отменяет элементы,
+     * которые еще обрабатываются, и закрывает входной Stream.
+     */
+    public <T, R> Stream<R> processStream(Stream<T> input, Function<T, R> processor, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight должен быть больше 0");
+        }
+        OrderedWindowIterator<T, R> iterator =
+            new OrderedWindowIterator<>(executor, input.iterator(), processor, maxInFlight);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(() -> {
+                iterator.cancel();
+                input.close();
+            });
     }
-}
 
+    /**
+     * Делит индексы [0, size) на чанки и обрабатывает их в пуле и в вызывающем потоке.
+     */
+    private void processRanges(int size, int threadPoolSize, RangeBody body) throws InterruptedException {
+        if (size == 0) {
+            return;
+        }
+        int parallelism = Math.max(1, Math.min(threadPoolSize, size));
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, ceilDiv(size, parallelism * CHUNKS_PER_THREAD));
+        int chunkCount = ceilDiv(size, chunkSize);
+        int workers = Math.min(parallelism, chunkCount);
+
+        // Вызывающий поток тоже обрабатывает чанки, поэтому в пул уходит на одну задачу меньше.
+        ChunkedJob job = new ChunkedJob(body, size, chunkSize, chunkCount, workers - 1);
+        for (int i = 1; i < workers; i++) {
+            try {
+                executor.execute(job::runPoolWorker);
+            } catch (RejectedExecutionException e) {
+                // Оставшиеся чанки обработает вызывающий поток.
+            }
+        }
+        job.runInCaller();
+    }
+
+    /**
+     * Изменяемый список, как раньше возвращал Collectors.toList().
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> List<R> toList(Object[] results) {
+        return new ArrayList<>((List<R>) Arrays.asList(results));
+    }
+
+    private static void checkLength(int inputLength, int outputLength) {
+        if (outputLength != inputLength) {
+            throw new IllegalArgumentException("Длина output (" + outputLength
+                + ") не совпадает с длиной input (" + inputLength + ")");
+        }
+    }
+
+    private static int ceilDiv(int dividend, int divisor) {
+        return divisor == 0 ? 0 : (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * Обработка диапазона индексов [from, to).
+     */
+    @FunctionalInterface
+    private interface RangeBody {
+        void process(int from, int to);
+    }
+
+    /**
+     * Состояние одного вызова: очередной чанк, рабочие пула и первая ошибка.
+     *
+     * Рабочий пула, который начал работу, засчитывается в finished по окончании.
+     * Рабочий, до которого очередь пула не дошла, пока вызывающий поток обрабатывал
+     * чанки, засчитывается вызывающим потоком и, запустившись позже, сразу выходит.
+     */
+    private static final class ChunkedJob {
+        private final RangeBody body;
+        private final int size;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final AtomicInteger nextChunk = new AtomicInteger(0);
+        /** Рабочие пула, которые еще не начали работу. */
+        private final AtomicInteger unclaimed;
+        private final CountDownLatch finished;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        ChunkedJob(RangeBody body, int size, int chunkSize, int chunkCount, int poolWorkers) {
+            this.body = body;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = chunkCount;
+            this.unclaimed = new AtomicInteger(poolWorkers);
+            this.finished = new CountDownLatch(poolWorkers);
+        }
+
+        void runPoolWorker() {
+            if (!claim()) {
+                return;
+            }
+            try {
+                processChunks();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        void runInCaller() throws InterruptedException {
+            processChunks();
+            for (int skipped = unclaimed.getAndSet(0); skipped > 0; skipped--) {
+                finished.countDown();
+            }
+            // Latch дает happens-before между записью результатов и их чтением.
+            finished.await();
+            Throwable error = failure.get();
+            if (error != null) {
+                throw new RuntimeException(new ExecutionException(error));
+            }
+        }
+
+        private boolean claim() {
+            for (;;) {
+                int current = unclaimed.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (unclaimed.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void processChunks() {
+            try {
+                int chunk;
+                while (failure.get() == null && (chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                    int from = chunk * chunkSize;
+                    body.process(from, Math.min(from + chunkSize, size));
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Окно из Future фиксированного размера. next() ждет голову окна и сразу
+     * отправляет в работу следующий элемент входа. После ошибки или cancel()
+     * итератор закрыт: окно отменено, вход больше не читается.
+     */
+    private static final class OrderedWindowIterator<T, R> implements Iterator<R> {
+        private final ExecutorService executor;
+        private final Iterator<T> input;
+        private final Function<T, R> processor;
+        private final int maxInFlight;
+        private final Deque<Future<R>> window = new ArrayDeque<>();
+        private boolean closed;
+
+        OrderedWindowIterator(ExecutorService executor, Iterator<T> input,
+                              Function<T, R> processor, int maxInFlight) {
+            this.executor = executor;
+            this.input = input;
+            this.processor = processor;
+            this.maxInFlight = maxInFlight;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !window.isEmpty();
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Future<R> head = window.pollFirst();
+            try {
+                R result = head.get();
+                fill();
+                return result;
+            } catch (ExecutionException e) {
+                cancel();
+                throw new RuntimeException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new RuntimeException(e);
+            }
+        }
+
+        void cancel() {
+            closed = true;
+            Future<R> future;
+            while ((future = window.pollFirst()) != null) {
+                future.cancel(true);
+            }
+        }
+
+        private void fill() {
+            while (!closed && window.size() < maxInFlight && input.hasNext()) {
+                T item = input.next();
+                window.addLast(executor.submit(() -> processor.apply(item)));
+            }
+        }
+    }
+}
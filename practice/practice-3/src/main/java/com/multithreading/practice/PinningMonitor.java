@@ -0,0 +1,94 @@
+package com.multithreading.practice;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчик закреплений (pinning) виртуальных потоков по типам задач.
+ *
+ * Виртуальный поток, который блокируется внутри synchronized или native-кода,
+ * не может отсоединиться от потока-носителя и занимает его все время ожидания.
+ * JFR сообщает о таких случаях событием jdk.VirtualThreadPinned, а о
+ * конкурентном входе в монитор - событием jdk.JavaMonitorEnter.
+ *
+ * Тип задачи берется из имени виртуального потока: VirtualThreadExecutor
+ * называет потоки "тип#номер". События приходят из JFR с задержкой
+ * (около секунды), поэтому счетчики обновляются асинхронно.
+ */
+public class PinningMonitor implements AutoCloseable {
+    static final char TYPE_SEPARATOR = '#';
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String MONITOR_ENTER_EVENT = "jdk.JavaMonitorEnter";
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Map<String, LongAdder> pinned = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> blockedOnMonitor = new ConcurrentHashMap<>();
+
+    public PinningMonitor() {
+        this(Duration.ofMillis(20));
+    }
+
+    /**
+     * @param threshold события короче этого порога JFR не записывает
+     */
+    public PinningMonitor(Duration threshold) {
+        stream.enable(PINNED_EVENT).withThreshold(threshold);
+        stream.enable(MONITOR_ENTER_EVENT).withThreshold(threshold);
+        stream.onEvent(PINNED_EVENT, event -> count(pinned, event));
+        stream.onEvent(MONITOR_ENTER_EVENT, event -> count(blockedOnMonitor, event));
+    }
+
+    public PinningMonitor start() {
+        stream.startAsync();
+        return this;
+    }
+
+    /**
+     * Число закреплений виртуальных потоков по типам задач.
+     */
+    public Map<String, Long> getPinnedCounts() {
+        return snapshot(pinned);
+    }
+
+    /**
+     * Число долгих ожиданий входа в монитор по типам задач.
+     */
+    public Map<String, Long> getBlockedOnMonitorCounts() {
+        return snapshot(blockedOnMonitor);
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    private static void count(Map<String, LongAdder> counters, RecordedEvent event) {
+        RecordedThread thread = event.getThread();
+        if (thread == null || !thread.isVirtual()) {
+            return;
+        }
+        counters.computeIfAbsent(taskType(thread.getJavaName()), type -> new LongAdder()).increment();
+    }
+
+    static String taskType(String threadName) {
+        if (threadName == null || threadName.isEmpty()) {
+            return "unknown";
+        }
+        int separator = threadName.lastIndexOf(TYPE_SEPARATOR);
+        return separator < 0 ? threadName : threadName.substring(0, separator);
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((type, counter) -> result.put(type, counter.sum()));
+        return result;
+    }
+}
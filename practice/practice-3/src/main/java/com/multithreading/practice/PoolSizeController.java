@@ -0,0 +1,95 @@
+package com.multithreading.practice;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Подбор числа рабочих потоков методом восхождения к вершине (hill climbing).
+ *
+ * Правильный размер пула зависит от того, какую долю времени задачи
+ * блокируются, и эта доля меняется в течение дня. Контроллер раз в интервал
+ * получает пропускную способность (завершенных задач в секунду) и сдвигает
+ * размер пула на один поток:
+ * - пропускная способность выросла - продолжаем в том же направлении;
+ * - упала - разворачиваемся;
+ * - не изменилась (в пределах шума) - уменьшаем пул: те же задачи меньшим числом потоков.
+ * Если в очереди нет задач, лишние потоки не помогут, и пул не растет.
+ *
+ * Последние решения сохраняются, чтобы их можно было посмотреть снаружи.
+ */
+public class PoolSizeController {
+    /** Относительное изменение пропускной способности, которое считается шумом. */
+    private static final double NOISE_TOLERANCE = 0.05;
+    private static final int HISTORY_SIZE = 64;
+
+    /**
+     * Решение контроллера по итогам одного интервала.
+     *
+     * @param previousSize размер пула во время измерения
+     * @param newSize новый размер пула
+     * @param throughput завершенных задач в секунду за интервал
+     */
+    public record Decision(int previousSize, int newSize, double throughput) {
+    }
+
+    private final int minSize;
+    private final int maxSize;
+    private final Deque<Decision> history = new ArrayDeque<>();
+    private int size;
+    private int direction = 1;
+    private double lastThroughput = -1;
+
+    PoolSizeController(int minSize, int maxSize) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Нужно 0 < minSize <= maxSize");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.size = minSize;
+    }
+
+    /**
+     * Принимает измерение за прошедший интервал и возвращает новый размер пула.
+     *
+     * @param throughput завершенных задач в секунду
+     * @param hasBacklog есть ли задачи, ожидающие в очереди
+     */
+    synchronized Decision adjust(double throughput, boolean hasBacklog) {
+        if (lastThroughput >= 0) {
+            double change = (throughput - lastThroughput) / Math.max(lastThroughput, 1.0);
+            if (change < -NOISE_TOLERANCE) {
+                direction = -direction;
+            } else if (change <= NOISE_TOLERANCE) {
+                direction = -1;
+            }
+        }
+        if (!hasBacklog) {
+            direction = -1;
+        }
+        int newSize = Math.max(minSize, Math.min(maxSize, size + direction));
+        if (newSize == size) {
+            // Уперлись в границу: в следующий раз пробуем другое направление.
+            direction = -direction;
+        }
+        Decision decision = new Decision(size, newSize, throughput);
+        size = newSize;
+        lastThroughput = throughput;
+        if (history.size() == HISTORY_SIZE) {
+            history.pollFirst();
+        }
+        history.addLast(decision);
+        return decision;
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Последние решения контроллера, от старых к новым.
+     */
+    public synchronized List<Decision> getDecisions() {
+        return List.copyOf(history);
+    }
+}
@@ -0,0 +1,103 @@
+package com.multithreading.practice;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Политика, которая срабатывает, когда очередь TaskProcessor заполнена.
+ *
+ * Ограниченная очередь сама по себе не спасает от перегрузки: нужно
+ * решить, что делать с задачей, которой не нашлось места. Варианты:
+ * - callerRuns(): задача выполняется в потоке вызывающего, что естественно
+ *   замедляет отправителя (backpressure);
+ * - failFast(): processTask сразу бросает RejectedExecutionException;
+ * - blockWithTimeout(): вызывающий ждет места в очереди не дольше тайм-аута;
+ * - dropOldest(): самая старая задача в очереди отменяется, новая встает в очередь.
+ *
+ * Если пул реализует PoolHooks (как пул TaskProcessor), callerRuns() выполняет
+ * задачу с теми же проверками и метриками, что и рабочий поток, а dropOldest()
+ * сообщает пулу о вытесненной задаче.
+ */
+@FunctionalInterface
+public interface RejectionPolicy extends RejectedExecutionHandler {
+
+    /**
+     * Возможности пула, которыми пользуются политики.
+     */
+    interface PoolHooks {
+        /**
+         * Выполняет задачу в текущем потоке, вызывая beforeExecute/afterExecute пула.
+         */
+        void runInCaller(Runnable task);
+
+        /**
+         * Сообщает пулу, что задача выброшена из очереди без выполнения.
+         */
+        void onDropped(Runnable task);
+    }
+
+    static RejectionPolicy callerRuns() {
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("ExecutorService завершен");
+            }
+            if (executor instanceof PoolHooks hooks) {
+                hooks.runInCaller(task);
+            } else {
+                task.run();
+            }
+        };
+    }
+
+    static RejectionPolicy failFast() {
+        return (task, executor) -> {
+            throw new RejectedExecutionException("Очередь задач заполнена: " + executor.getQueue().size());
+        };
+    }
+
+    static RejectionPolicy blockWithTimeout(Duration timeout) {
+        long timeoutNanos = timeout.toNanos();
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("ExecutorService завершен");
+            }
+            try {
+                if (!executor.getQueue().offer(task, timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new RejectedExecutionException("Место в очереди не освободилось за " + timeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Ожидание места в очереди прервано", e);
+            }
+        };
+    }
+
+    static RejectionPolicy dropOldest() {
+        return (task, executor) -> {
+            // Все потоки пула уже заняты, поэтому задача кладется прямо в очередь,
+            // без повторного execute() и повторного срабатывания политики.
+            for (;;) {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("ExecutorService завершен");
+                }
+                if (executor.getQueue().offer(task)) {
+                    return;
+                }
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest == null) {
+                    continue;
+                }
+                // Вытесненную задачу отменяем, иначе ее Future никогда не завершится.
+                if (oldest instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+                if (executor instanceof PoolHooks hooks) {
+                    hooks.onDropped(oldest);
+                }
+            }
+        };
+    }
+}
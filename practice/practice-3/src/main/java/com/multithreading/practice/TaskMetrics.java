@@ -0,0 +1,85 @@
+package com.multithreading.practice;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Метрики задач TaskProcessor с разбивкой по тегу задачи.
+ *
+ * Для каждой задачи отдельно записываются время ожидания в очереди и время
+ * выполнения. Если растет ожидание, а выполнение нет - пул насыщен; если
+ * растет выполнение - медленна сама работа.
+ */
+public class TaskMetrics {
+    public static final String DEFAULT_TAG = "default";
+    /** Интервал недавней статистики: она покрывает последние 15-20 секунд. */
+    private static final Duration RECENT_INTERVAL = Duration.ofSeconds(5);
+
+    /**
+     * Перцентили длительности в наносекундах.
+     */
+    public record Percentiles(long p50, long p99, long p999) {
+        static Percentiles of(LatencyHistogram histogram) {
+            return new Percentiles(histogram.percentile(0.5), histogram.percentile(0.99),
+                histogram.percentile(0.999));
+        }
+    }
+
+    /**
+     * Метрики задач одного тега.
+     *
+     * @param completed сколько задач тега выполнено
+     * @param queueWaitNanos ожидание в очереди
+     * @param runTimeNanos время выполнения
+     */
+    public record TagSnapshot(long completed, Percentiles queueWaitNanos, Percentiles runTimeNanos) {
+    }
+
+    /**
+     * Согласованный на момент вызова срез метрик TaskProcessor.
+     *
+     * @param completedTasks сколько задач выполнено с момента создания
+     * @param throughput среднее число выполненных задач в секунду с момента создания
+     * @param activeThreads сколько потоков выполняют задачи прямо сейчас
+     * @param queueDepth сколько задач ожидает в очереди
+     * @param tags метрики по тегам
+     */
+    public record Snapshot(long completedTasks, double throughput, int activeThreads, int queueDepth,
+                           Map<String, TagSnapshot> tags) {
+    }
+
+    /**
+     * Гистограммы одного тега. Ссылка на них сохраняется в задаче при отправке,
+     * чтобы не искать тег в карте при каждой записи. recentRunTime - время
+     * выполнения только за последние интервалы, по нему решает processHedged().
+     */
+    static final class TagMetrics {
+        final LatencyHistogram queueWait = new LatencyHistogram();
+        final LatencyHistogram runTime = new LatencyHistogram();
+        final WindowedLatencyHistogram recentRunTime = new WindowedLatencyHistogram(RECENT_INTERVAL);
+    }
+
+    private final Map<String, TagMetrics> tags = new ConcurrentHashMap<>();
+    private final long createdNanos = System.nanoTime();
+
+    TagMetrics forTag(String tag) {
+        TagMetrics metrics = tags.get(tag);
+        return metrics != null ? metrics : tags.computeIfAbsent(tag, t -> new TagMetrics());
+    }
+
+    Snapshot snapshot(int activeThreads, int queueDepth) {
+        Map<String, TagSnapshot> result = new TreeMap<>();
+        long completed = 0;
+        for (Map.Entry<String, TagMetrics> entry : tags.entrySet()) {
+            TagMetrics metrics = entry.getValue();
+            long count = metrics.runTime.getCount();
+            completed += count;
+            result.put(entry.getKey(), new TagSnapshot(count,
+                Percentiles.of(metrics.queueWait), Percentiles.of(metrics.runTime)));
+        }
+        double seconds = Math.max(1L, System.nanoTime() - createdNanos) / 1e9;
+        return new Snapshot(completed, completed / seconds, activeThreads, queueDepth, result);
+    }
+}
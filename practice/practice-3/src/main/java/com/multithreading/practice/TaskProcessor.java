@@ -1,7 +1,16 @@
 package com.multithreading.practice;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Класс для обработки задач через ExecutorService.
@@ -12,12 +21,142 @@ import java.util.concurrent.*;
  * - Используйте Executors.newFixedThreadPool() для создания пула потоков
  * - Не забывайте вызывать shutdown() и awaitTermination()
  * - Правильно обрабатывайте исключения при получении результатов Future
+ * 
+ * Конструктор по умолчанию повторяет Executors.newFixedThreadPool() с неограниченной
+ * очередью. Под всплеском нагрузки такая очередь растет, пока не кончится heap,
+ * поэтому есть вариант с ограниченной очередью и политикой отказа (RejectionPolicy).
+ * 
+ * Задаче можно назначить дедлайн. Задача, дедлайн которой прошел до начала
+ * выполнения, отменяется и не занимает рабочий поток. В режиме
+ * EARLIEST_DEADLINE_FIRST очередь упорядочена по дедлайну, а не по времени
+ * поступления: под перегрузкой срочная работа выполняется первой.
+ * 
+ * Если заранее неизвестно, сколько потоков нужно (доля блокирующей работы
+ * меняется), пул может подбирать размер сам: раз в интервал PoolSizeController
+ * сравнивает пропускную способность с предыдущей и сдвигает размер в пределах
+ * заданных границ.
+ * 
+ * Для каждой задачи записываются время ожидания в очереди и время выполнения
+ * с разбивкой по тегу (TaskMetrics). Срез доступен через getMetrics(), а после
+ * registerMBean() - и через JMX.
+ * 
+ * processHedged() борется с хвостом задержек идемпотентных задач: если первая
+ * попытка не завершилась за недавний p95 ее тега, запускается дубликат, и побеждает
+ * тот, кто закончит первым. Доля дубликатов ограничена бюджетом от числа вызовов.
+ * 
+ * Вместо ThreadPoolExecutor можно выбрать Backend.WORK_STEALING - пул
+ * WorkStealingExecutor с декой на каждый поток. Он выгоднее, когда задачи
+ * порождают подзадачи: такие задачи не проходят через общую очередь.
  */
 public class TaskProcessor {
+    
+    public enum SchedulingMode {
+        /** Задачи выполняются в порядке поступления. */
+        FIFO,
+        /** Сначала выполняется задача с самым ранним дедлайном; задачи без дедлайна - последними. */
+        EARLIEST_DEADLINE_FIRST
+    }
+    
+    public enum Backend {
+        /** ThreadPoolExecutor с общей очередью задач. */
+        THREAD_POOL,
+        /** WorkStealingExecutor: задачи из рабочих потоков идут в их собственные деки. */
+        WORK_STEALING
+    }
+    
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    /** По умолчанию дубликаты - не больше 10% от числа вызовов processHedged. */
+    private static final double DEFAULT_HEDGE_BUDGET = 0.1;
+    /** Сколько недавно выполненных задач тега нужно, чтобы доверять его p95. */
+    private static final long MIN_HEDGE_SAMPLES = 32;
+    
     private final ExecutorService executor;
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong sequence = new AtomicLong(0);
+    private final AtomicLong expiredCount = new AtomicLong(0);
+    private final AtomicLong hedgedCallCount = new AtomicLong(0);
+    private final AtomicLong hedgeCount = new AtomicLong(0);
+    private volatile double hedgeBudget = DEFAULT_HEDGE_BUDGET;
+    private final TaskMetrics metrics = new TaskMetrics();
+    private volatile ObjectName mbeanName;
+    private final PoolSizeController sizeController;
+    private final ScheduledExecutorService sampler;
+    private long lastCompletedCount;
+    private long lastSampleNanos;
     
     public TaskProcessor(int threadPoolSize) {
-        this.executor = Executors.newFixedThreadPool(threadPoolSize);
+        this(threadPoolSize, SchedulingMode.FIFO);
+    }
+    
+    /**
+     * Создает пул с неограниченной очередью и выбранным порядком выполнения.
+     * 
+     * @param threadPoolSize размер пула потоков
+     * @param mode порядок выборки задач из очереди
+     */
+    public TaskProcessor(int threadPoolSize, SchedulingMode mode) {
+        BlockingQueue<Runnable> queue = mode == SchedulingMode.EARLIEST_DEADLINE_FIRST
+            ? new PriorityBlockingQueue<>()
+            : new LinkedBlockingQueue<>();
+        this.executor = new TaskExecutor(threadPoolSize, queue, new ThreadPoolExecutor.AbortPolicy());
+        this.sizeController = null;
+        this.sampler = null;
+    }
+    
+    /**
+     * Создает пул фиксированного размера на выбранной реализации.
+     * 
+     * @param threadPoolSize размер пула потоков
+     * @param backend реализация пула
+     */
+    public TaskProcessor(int threadPoolSize, Backend backend) {
+        this.executor = backend == Backend.WORK_STEALING
+            ? new TaskWorkStealingExecutor(threadPoolSize)
+            : new TaskExecutor(threadPoolSize, new LinkedBlockingQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+        this.sizeController = null;
+        this.sampler = null;
+    }
+    
+    /**
+     * Создает пул с ограниченной очередью.
+     * 
+     * @param threadPoolSize размер пула потоков
+     * @param queueCapacity максимальное число задач, ожидающих в очереди
+     * @param rejectionPolicy что делать с задачей, если очередь заполнена
+     */
+    public TaskProcessor(int threadPoolSize, int queueCapacity, RejectionPolicy rejectionPolicy) {
+        this.executor = new TaskExecutor(threadPoolSize, new ArrayBlockingQueue<>(queueCapacity),
+            (task, pool) -> {
+                try {
+                    rejectionPolicy.rejectedExecution(task, pool);
+                } catch (RejectedExecutionException e) {
+                    rejectedCount.incrementAndGet();
+                    throw e;
+                }
+            });
+        this.sizeController = null;
+        this.sampler = null;
+    }
+    
+    /**
+     * Создает пул с неограниченной очередью, который сам подбирает число потоков.
+     * Пул стартует с minThreads потоков.
+     * 
+     * @param minThreads нижняя граница размера пула
+     * @param maxThreads верхняя граница размера пула
+     * @param sampleInterval как часто измерять пропускную способность и менять размер
+     */
+    public TaskProcessor(int minThreads, int maxThreads, Duration sampleInterval) {
+        this.sizeController = new PoolSizeController(minThreads, maxThreads);
+        this.executor = new TaskExecutor(minThreads, new LinkedBlockingQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-processor-sizing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastSampleNanos = System.nanoTime();
+        long intervalNanos = sampleInterval.toNanos();
+        sampler.scheduleAtFixedRate(this::resize, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
     }
     
     /**
@@ -27,7 +166,30 @@ public class TaskProcessor {
      * @return Future с результатом выполнения задачи
      */
     public <T> Future<T> processTask(Callable<T> task) {
-        return executor.submit(task);
+        return submit(task, NO_DEADLINE, TaskMetrics.DEFAULT_TAG);
+    }
+    
+    /**
+     * Обрабатывает задачу, записывая ее метрики под указанным тегом.
+     * 
+     * @param task задача для выполнения
+     * @param tag тип задачи, например имя вызываемого сервиса
+     * @return Future с результатом выполнения задачи
+     */
+    public <T> Future<T> processTask(Callable<T> task, String tag) {
+        return submit(task, NO_DEADLINE, tag);
+    }
+    
+    /**
+     * Обрабатывает задачу с дедлайном. Если задача не успела начаться
+     * до дедлайна, она отменяется: Future.isCancelled() вернет true.
+     * 
+     * @param task задача для выполнения
+     * @param deadline через сколько от текущего момента задача должна начаться
+     * @return Future с результатом выполнения задачи
+     */
+    public <T> Future<T> processTask(Callable<T> task, Duration deadline) {
+        return submit(task, System.nanoTime() + deadline.toNanos(), TaskMetrics.DEFAULT_TAG);
     }
     
     /**
@@ -39,11 +201,68 @@ public class TaskProcessor {
     public <T> List<Future<T>> processTasks(List<Callable<T>> tasks) {
         List<Future<T>> futures = new java.util.ArrayList<>();
         for (Callable<T> task : tasks) {
-            futures.add(executor.submit(task));
+            futures.add(submit(task, NO_DEADLINE, TaskMetrics.DEFAULT_TAG));
         }
         return futures;
     }
     
+    /**
+     * Выполняет идемпотентную задачу с дублированием (hedging). Если попытка
+     * не завершилась за задержку, запускается еще одна попытка на другом
+     * рабочем потоке. Возвращается результат первой успешной попытки,
+     * остальные прерываются. Ошибка возвращается, только если упали все
+     * запущенные попытки.
+     * 
+     * Задержка - p95 времени выполнения задач тега "default" за последние
+     * 15-20 секунд, когда за них накоплено достаточно статистики, иначе hedgeDelay.
+     * Прерванные проигравшие попытки в статистику не попадают.
+     * 
+     * @param task идемпотентная задача: она может выполниться несколько раз
+     * @param hedgeDelay задержка перед дублированием, пока нет статистики
+     * @param maxAttempts сколько попыток можно запустить всего, включая первую
+     * @return future с результатом; его отмена прерывает все попытки
+     */
+    public <T> CompletableFuture<T> processHedged(Callable<T> task, Duration hedgeDelay, int maxAttempts) {
+        return processHedged(task, TaskMetrics.DEFAULT_TAG, hedgeDelay, maxAttempts);
+    }
+    
+    /**
+     * То же, что processHedged(task, hedgeDelay, maxAttempts), но задержка
+     * берется из p95 указанного тега, и попытки записываются под ним.
+     */
+    public <T> CompletableFuture<T> processHedged(Callable<T> task, String tag, Duration hedgeDelay, int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts должен быть больше 0");
+        }
+        hedgedCallCount.incrementAndGet();
+        TaskMetrics.TagMetrics tagMetrics = metrics.forTag(tag);
+        long delayNanos = tagMetrics.recentRunTime.getCount() >= MIN_HEDGE_SAMPLES
+            ? tagMetrics.recentRunTime.percentile(0.95)
+            : hedgeDelay.toNanos();
+        HedgedCall<T> call = new HedgedCall<>(task, tagMetrics, delayNanos, maxAttempts);
+        call.launch();
+        return call.result;
+    }
+    
+    /**
+     * Задает бюджет дублирования: доля дубликатов от числа вызовов processHedged.
+     * 
+     * @param fraction от 0 (без дублирования) до 1
+     */
+    public void setHedgeBudget(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Бюджет должен быть в диапазоне [0, 1]");
+        }
+        this.hedgeBudget = fraction;
+    }
+    
+    /**
+     * Сколько дополнительных попыток запустил processHedged.
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+    
     /**
      * Корректно завершает ExecutorService, дожидаясь завершения всех задач.
      * 
@@ -53,15 +272,422 @@ public class TaskProcessor {
      * @throws InterruptedException если поток был прерван
      */
     public boolean shutdownGracefully(long timeout, TimeUnit unit) throws InterruptedException {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+        unregisterMBean();
         executor.shutdown();
         return executor.awaitTermination(timeout, unit);
     }
     
+    /**
+     * Число задач, ожидающих в очереди.
+     */
+    public int getQueueDepth() {
+        return queueDepth();
+    }
+    
+    /**
+     * Сколько задач потеряно из-за переполненной очереди: отклонены политикой
+     * отказа или вытеснены из очереди (dropOldest). Задачи, выполненные
+     * политикой callerRuns, не считаются.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+    
+    /**
+     * Сколько задач было отменено, потому что их дедлайн прошел до начала выполнения.
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+    
+    /**
+     * Текущее число рабочих потоков (целевой размер пула).
+     */
+    public int getPoolSize() {
+        return executor instanceof ThreadPoolExecutor pool
+            ? pool.getCorePoolSize()
+            : ((WorkStealingExecutor) executor).getPoolSize();
+    }
+    
+    /**
+     * Последние решения PoolSizeController; пустой список, если размер пула фиксирован.
+     */
+    public List<PoolSizeController.Decision> getSizingDecisions() {
+        return sizeController == null ? Collections.emptyList() : sizeController.getDecisions();
+    }
+    
+    /**
+     * Срез метрик: перцентили ожидания и выполнения по тегам, пропускная
+     * способность, число активных потоков и глубина очереди.
+     */
+    public TaskMetrics.Snapshot getMetrics() {
+        return metrics.snapshot(activeCount(), queueDepth());
+    }
+    
+    /**
+     * Регистрирует метрики в платформенном MBeanServer под именем
+     * com.multithreading.practice:type=TaskProcessor с ключом name.
+     * MBean снимается с регистрации в shutdownGracefully().
+     * 
+     * @return имя зарегистрированного MBean
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.multithreading.practice:type=TaskProcessor,name="
+            + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), objectName);
+        mbeanName = objectName;
+        return objectName;
+    }
+    
     /**
      * Проверяет, завершен ли ExecutorService.
      */
     public boolean isTerminated() {
         return executor.isTerminated();
     }
+    
+    /**
+     * Периодическая задача sampler. Исключение из scheduleAtFixedRate() навсегда
+     * отменило бы подбор размера, поэтому оно только сообщается обработчику потока.
+     */
+    private void resize() {
+        try {
+            resizeOnce();
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+    
+    /**
+     * Измеряет пропускную способность за прошедший интервал и применяет новый размер.
+     * Вызывается только потоком sampler.
+     */
+    private void resizeOnce() {
+        // Адаптивный режим создается только с ThreadPoolExecutor.
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        long completed = pool.getCompletedTaskCount();
+        long now = System.nanoTime();
+        double throughput = (completed - lastCompletedCount) * (double) TimeUnit.SECONDS.toNanos(1)
+            / Math.max(1L, now - lastSampleNanos);
+        lastCompletedCount = completed;
+        lastSampleNanos = now;
+        
+        int newSize = sizeController.adjust(throughput, !pool.getQueue().isEmpty()).newSize();
+        // maximumPoolSize не может быть меньше corePoolSize, поэтому порядок зависит от направления.
+        if (newSize > pool.getCorePoolSize()) {
+            pool.setMaximumPoolSize(newSize);
+            pool.setCorePoolSize(newSize);
+        } else if (newSize < pool.getCorePoolSize()) {
+            pool.setCorePoolSize(newSize);
+            pool.setMaximumPoolSize(newSize);
+        }
+    }
+    
+    private int queueDepth() {
+        return executor instanceof ThreadPoolExecutor pool
+            ? pool.getQueue().size()
+            : ((WorkStealingExecutor) executor).getQueuedTaskCount();
+    }
+    
+    private int activeCount() {
+        return executor instanceof ThreadPoolExecutor pool
+            ? pool.getActiveCount()
+            : ((WorkStealingExecutor) executor).getActiveCount();
+    }
+    
+    /**
+     * Вызывается рабочим потоком перед задачей: отменяет просроченную задачу
+     * или записывает время ожидания в очереди.
+     */
+    private void beforeTask(Runnable task) {
+        if (!(task instanceof TaskFuture<?> future)) {
+            return;
+        }
+        if (future.isExpired() && future.cancel(false)) {
+            // После отмены FutureTask.run() сразу вернется, не вызывая задачу.
+            expiredCount.incrementAndGet();
+            return;
+        }
+        long now = System.nanoTime();
+        future.tagMetrics.queueWait.record(now - future.enqueuedNanos);
+        future.startedNanos = now;
+    }
+    
+    /**
+     * Вызывается рабочим потоком после задачи: записывает время выполнения.
+     * Время отмененной задачи (например, прерванной проигравшей попытки
+     * processHedged) - это не ее длительность, поэтому оно не записывается.
+     */
+    private void afterTask(Runnable task) {
+        if (task instanceof TaskFuture<?> future && future.startedNanos != 0 && !future.isCancelled()) {
+            long runTime = System.nanoTime() - future.startedNanos;
+            future.tagMetrics.runTime.record(runTime);
+            future.tagMetrics.recentRunTime.record(runTime);
+        }
+    }
+    
+    private void unregisterMBean() {
+        ObjectName name = mbeanName;
+        if (name != null) {
+            mbeanName = null;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                // MBean уже снят с регистрации извне.
+            }
+        }
+    }
+    
+    /**
+     * Резервирует дубликат, если он укладывается в бюджет.
+     */
+    private boolean tryAcquireHedge() {
+        for (;;) {
+            long hedges = hedgeCount.get();
+            if (hedges + 1 > hedgeBudget * hedgedCallCount.get()) {
+                return false;
+            }
+            if (hedgeCount.compareAndSet(hedges, hedges + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private <T> Future<T> submit(Callable<T> task, long deadlineNanos, String tag) {
+        TaskFuture<T> future = new TaskFuture<>(task, deadlineNanos, sequence.getAndIncrement(),
+            metrics.forTag(tag));
+        executor.execute(future);
+        return future;
+    }
+    
+    /**
+     * Future задачи с дедлайном. Упорядочивается по дедлайну, при равных
+     * дедлайнах - по порядку поступления. Хранит время постановки в очередь
+     * и начала выполнения для метрик.
+     */
+    private static class TaskFuture<T> extends FutureTask<T> implements Comparable<TaskFuture<?>> {
+        private final long deadlineNanos;
+        private final long sequence;
+        private final TaskMetrics.TagMetrics tagMetrics;
+        private final long enqueuedNanos = System.nanoTime();
+        /** Пишется и читается только рабочим потоком в before/afterExecute. */
+        private long startedNanos;
+        
+        TaskFuture(Callable<T> task, long deadlineNanos, long sequence, TaskMetrics.TagMetrics tagMetrics) {
+            super(task);
+            this.deadlineNanos = deadlineNanos;
+            this.sequence = sequence;
+            this.tagMetrics = tagMetrics;
+        }
+        
+        boolean isExpired() {
+            return deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos > 0;
+        }
+        
+        @Override
+        public int compareTo(TaskFuture<?> other) {
+            if (deadlineNanos != other.deadlineNanos) {
+                if (deadlineNanos == NO_DEADLINE) {
+                    return 1;
+                }
+                if (other.deadlineNanos == NO_DEADLINE) {
+                    return -1;
+                }
+                return deadlineNanos - other.deadlineNanos < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+    
+    /**
+     * Состояние одного вызова processHedged: запущенные попытки и общий результат.
+     */
+    private final class HedgedCall<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Callable<T> task;
+        private final TaskMetrics.TagMetrics tagMetrics;
+        private final long delayNanos;
+        private final int maxAttempts;
+        private final List<Future<T>> attempts = new java.util.ArrayList<>();
+        private int finished;
+        
+        HedgedCall(Callable<T> task, TaskMetrics.TagMetrics tagMetrics, long delayNanos, int maxAttempts) {
+            this.task = task;
+            this.tagMetrics = tagMetrics;
+            this.delayNanos = delayNanos;
+            this.maxAttempts = maxAttempts;
+            // Победитель найден или вызов отменен - проигравшие попытки больше не нужны.
+            result.whenComplete((value, error) -> cancelAttempts());
+        }
+        
+        void launch() {
+            TaskFuture<T> attempt = new TaskFuture<>(task, NO_DEADLINE, sequence.getAndIncrement(), tagMetrics) {
+                @Override
+                protected void done() {
+                    attemptDone(this);
+                }
+            };
+            int launched;
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                attempts.add(attempt);
+                launched = attempts.size();
+            }
+            try {
+                executor.execute(attempt);
+            } catch (RejectedExecutionException e) {
+                attempt.cancel(false);
+            }
+            if (launched < maxAttempts) {
+                CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                    if (!result.isDone() && tryAcquireHedge()) {
+                        launch();
+                    }
+                });
+            }
+        }
+        
+        private void attemptDone(Future<T> attempt) {
+            if (result.isDone()) {
+                return;
+            }
+            Throwable failure;
+            try {
+                result.complete(attempt.get());
+                return;
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } catch (CancellationException | InterruptedException e) {
+                failure = e;
+            }
+            synchronized (this) {
+                finished++;
+                // Ошибка возвращается, только если не осталось попыток в работе.
+                if (finished < attempts.size()) {
+                    return;
+                }
+            }
+            result.completeExceptionally(failure);
+        }
+        
+        private void cancelAttempts() {
+            List<Future<T>> snapshot;
+            synchronized (this) {
+                snapshot = List.copyOf(attempts);
+            }
+            for (Future<T> attempt : snapshot) {
+                attempt.cancel(true);
+            }
+        }
+    }
+    
+    /**
+     * ThreadPoolExecutor, который отменяет просроченные задачи перед запуском
+     * и записывает метрики задач, в том числе для задач, выполненных политикой отказа.
+     */
+    private final class TaskExecutor extends ThreadPoolExecutor implements RejectionPolicy.PoolHooks {
+        
+        TaskExecutor(int threadPoolSize, BlockingQueue<Runnable> queue, RejectedExecutionHandler handler) {
+            super(threadPoolSize, threadPoolSize, 0L, TimeUnit.MILLISECONDS, queue, handler);
+        }
+        
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            beforeTask(task);
+        }
+        
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            afterTask(task);
+        }
+        
+        @Override
+        public void runInCaller(Runnable task) {
+            beforeExecute(Thread.currentThread(), task);
+            Throwable error = null;
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                error = e;
+                throw e;
+            } finally {
+                afterExecute(task, error);
+            }
+        }
+        
+        @Override
+        public void onDropped(Runnable task) {
+            rejectedCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * WorkStealingExecutor с теми же проверками дедлайна и метриками, что и TaskExecutor.
+     */
+    private final class TaskWorkStealingExecutor extends WorkStealingExecutor {
+        
+        TaskWorkStealingExecutor(int parallelism) {
+            super(parallelism);
+        }
+        
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            beforeTask(task);
+        }
+        
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            afterTask(task);
+        }
+    }
+    
+    private final class MetricsMBean implements TaskProcessorMXBean {
+        
+        @Override
+        public int getActiveThreads() {
+            return activeCount();
+        }
+        
+        @Override
+        public int getQueueDepth() {
+            return queueDepth();
+        }
+        
+        @Override
+        public long getCompletedTaskCount() {
+            return getMetrics().completedTasks();
+        }
+        
+        @Override
+        public double getThroughput() {
+            return getMetrics().throughput();
+        }
+        
+        @Override
+        public Map<String, Long> getQueueWaitNanos() {
+            return flatten(TaskMetrics.TagSnapshot::queueWaitNanos);
+        }
+        
+        @Override
+        public Map<String, Long> getRunTimeNanos() {
+            return flatten(TaskMetrics.TagSnapshot::runTimeNanos);
+        }
+        
+        private Map<String, Long> flatten(Function<TaskMetrics.TagSnapshot, TaskMetrics.Percentiles> metric) {
+            Map<String, Long> result = new LinkedHashMap<>();
+            getMetrics().tags().forEach((tag, snapshot) -> {
+                TaskMetrics.Percentiles percentiles = metric.apply(snapshot);
+                result.put(tag + ".p50", percentiles.p50());
+                result.put(tag + ".p99", percentiles.p99());
+                result.put(tag + ".p999", percentiles.p999());
+            });
+            return result;
+        }
+    }
 }
-
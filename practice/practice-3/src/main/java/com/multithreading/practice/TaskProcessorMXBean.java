@@ -0,0 +1,27 @@
+package com.multithreading.practice;
+
+import java.util.Map;
+
+/**
+ * JMX-представление метрик TaskProcessor (см. TaskProcessor.registerMBean()).
+ *
+ * Перцентили отдаются плоскими картами с ключами вида "тег.p99", чтобы их
+ * можно было читать в JConsole и любом JMX-коллекторе без дополнительных типов.
+ */
+public interface TaskProcessorMXBean {
+
+    int getActiveThreads();
+
+    int getQueueDepth();
+
+    long getCompletedTaskCount();
+
+    /** Среднее число выполненных задач в секунду с момента создания. */
+    double getThroughput();
+
+    /** Перцентили ожидания в очереди в наносекундах: "тег.p50", "тег.p99", "тег.p999". */
+    Map<String, Long> getQueueWaitNanos();
+
+    /** Перцентили времени выполнения в наносекундах: "тег.p50", "тег.p99", "тег.p999". */
+    Map<String, Long> getRunTimeNanos();
+}
@@ -0,0 +1,371 @@
+package com.multithreading.practice;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Планировщик отложенных и периодических задач на иерархическом хэшированном
+ * колесе таймеров (hierarchical hashed timing wheel).
+ *
+ * ScheduledThreadPoolExecutor хранит задачи в куче под общей блокировкой:
+ * каждое планирование и каждая отмена стоят O(log n) и конкурируют за lock.
+ * Для таймаутов, которые почти всегда отменяются, это основная стоимость.
+ *
+ * Здесь время делится на тики фиксированной длины. Колесо уровня L состоит из
+ * wheelSize корзин, каждая корзина уровня L покрывает wheelSize^L тиков.
+ * Таймер кладется в корзину по цифрам своего тика в системе счисления с
+ * основанием wheelSize: уровень - старшая цифра, которой он отличается от
+ * текущего тика. Когда младшие цифры текущего тика обнуляются, корзина
+ * верхнего уровня переносится (cascade) на нижние уровни.
+ *
+ * Все структуры колеса принадлежат одному потоку таймера. schedule() и cancel()
+ * только кладут таймер в lock-free очередь и меняют его состояние CAS-ом - O(1)
+ * без блокировок. Поток таймера на каждом тике разбирает очереди, связывает
+ * таймеры в двусвязные списки корзин (удаление тоже O(1)) и передает
+ * сработавшие задачи на рабочий пул, сам задачи не выполняя.
+ *
+ * Если рабочий пул не принял задачу или планировщик закрыт раньше срабатывания,
+ * future таймера (Timeout.future()) завершается RejectedExecutionException.
+ *
+ * Класс final: поток таймера запускается в конструкторе, и подкласс увидел бы
+ * в run() свои еще не инициализированные поля.
+ */
+public final class TimingWheelScheduler implements AutoCloseable {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final int REJECTED = 3;
+
+    /**
+     * Запланированная задача. cancel() можно вызывать из любого потока.
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long periodTicks;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final TimingWheelScheduler scheduler;
+        // Поля ниже меняет только поток таймера.
+        private long expirationTick;
+        private Timeout prev;
+        private Timeout next;
+        private int level = -1;
+
+        private Timeout(TimingWheelScheduler scheduler, Runnable task, long expirationTick, long periodTicks) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.expirationTick = expirationTick;
+            this.periodTicks = periodTicks;
+        }
+
+        /**
+         * Отменяет задачу, если она еще не была передана на выполнение.
+         * Периодическая задача после отмены больше не запускается.
+         *
+         * @return true, если отмена произошла в результате этого вызова
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            scheduler.cancellations.add(this);
+            future.cancel(false);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * true, если разовая задача передана на выполнение.
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * Future, который завершается, когда разовая задача передана на рабочий пул,
+         * и отменяется вместе с задачей. Если пул не принял задачу или планировщик
+         * закрыт раньше срабатывания, future завершается RejectedExecutionException,
+         * а периодическая задача больше не запускается. Обработчики future
+         * без явного Executor выполняются потоком таймера и должны быть короткими.
+         */
+        public CompletableFuture<Void> future() {
+            return future;
+        }
+
+        private void reject(RejectedExecutionException cause) {
+            state.set(REJECTED);
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final Timeout[][] wheels;
+    private final Executor dispatcher;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+    private final Thread timerThread;
+    private volatile boolean closed;
+    /** Следующий необработанный тик. Меняет только поток таймера. */
+    private long currentTick;
+
+    /**
+     * Колесо, которое передает сработавшие задачи на пул TaskProcessor.
+     * Future от processTask() никто не читает, поэтому исключение задачи
+     * передается обработчику UncaughtExceptionHandler рабочего потока,
+     * как у задачи, отправленной через Executor.execute().
+     *
+     * @param tick длительность тика - точность срабатывания
+     * @param workers пул, на котором выполняются задачи
+     */
+    public TimingWheelScheduler(Duration tick, TaskProcessor workers) {
+        this(tick, 512, task -> workers.processTask(Executors.callable(reportingFailures(task))));
+    }
+
+    /**
+     * @param tick длительность тика - точность срабатывания
+     * @param wheelSize число корзин в колесе одного уровня, степень двойки
+     * @param dispatcher где выполнять сработавшие задачи
+     */
+    public TimingWheelScheduler(Duration tick, int wheelSize, Executor dispatcher) {
+        if (tick.toNanos() <= 0) {
+            throw new IllegalArgumentException("Тик должен быть больше 0");
+        }
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize должен быть степенью двойки не меньше 2");
+        }
+        this.tickNanos = tick.toNanos();
+        this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+        this.wheelMask = wheelSize - 1;
+        // Уровней достаточно, чтобы разместить любой тик в long.
+        this.wheels = new Timeout[(Long.SIZE + wheelBits - 1) / wheelBits][wheelSize];
+        this.dispatcher = dispatcher;
+        this.timerThread = new Thread(this::run, "timing-wheel");
+        timerThread.setDaemon(true);
+        timerThread.start();
+    }
+
+    /**
+     * Планирует однократное выполнение задачи через delay.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        return add(task, delay.toNanos(), 0);
+    }
+
+    /**
+     * Планирует выполнение задачи через initialDelay и затем каждые period.
+     * Период округляется вверх до целого числа тиков.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, Duration initialDelay, Duration period) {
+        long periodTicks = Math.max(1L, ceilDiv(period.toNanos(), tickNanos));
+        return add(task, initialDelay.toNanos(), periodTicks);
+    }
+
+    /**
+     * Останавливает поток таймера. Несработавшие задачи не выполняются,
+     * их future завершаются RejectedExecutionException.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(timerThread);
+    }
+
+    private Timeout add(Runnable task, long delayNanos, long periodTicks) {
+        if (closed) {
+            throw new RejectedExecutionException("Планировщик остановлен");
+        }
+        long elapsed = System.nanoTime() - startNanos + Math.max(0L, delayNanos);
+        Timeout timeout = new Timeout(this, task, ceilDiv(elapsed, tickNanos), periodTicks);
+        additions.add(timeout);
+        if (closed) {
+            // close() случился после проверки выше; поток таймера мог уже разобрать очередь.
+            if (timeout.state.compareAndSet(PENDING, REJECTED)) {
+                timeout.future.completeExceptionally(new RejectedExecutionException("Планировщик остановлен"));
+            }
+            throw new RejectedExecutionException("Планировщик остановлен");
+        }
+        return timeout;
+    }
+
+    private void run() {
+        while (!closed) {
+            long waitNanos = startNanos + currentTick * tickNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+            processTick(currentTick);
+            currentTick++;
+        }
+        rejectPending();
+    }
+
+    /**
+     * Завершает future всех несработавших таймеров после close(). Таймер,
+     * добавленный уже после этого обхода, увидит closed и отклонит сам add().
+     */
+    private void rejectPending() {
+        RejectedExecutionException cause = new RejectedExecutionException("Планировщик остановлен");
+        for (Timeout[] wheel : wheels) {
+            for (Timeout head : wheel) {
+                for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+                    if (timeout.state.compareAndSet(PENDING, REJECTED)) {
+                        timeout.future.completeExceptionally(cause);
+                    }
+                }
+            }
+        }
+        Timeout timeout;
+        while ((timeout = additions.poll()) != null) {
+            if (timeout.state.compareAndSet(PENDING, REJECTED)) {
+                timeout.future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private void processTick(long tick) {
+        Timeout timeout;
+        while ((timeout = cancellations.poll()) != null) {
+            unlink(timeout);
+        }
+        while ((timeout = additions.poll()) != null) {
+            if (timeout.state.get() == PENDING) {
+                insert(timeout, tick);
+            }
+        }
+        // Сверху вниз: таймеры, перенесенные с верхнего уровня, могут
+        // попасть в корзину нижнего уровня, которую тоже пора переносить.
+        for (int level = wheels.length - 1; level > 0; level--) {
+            int shift = wheelBits * level;
+            if (shift < Long.SIZE && (tick & ((1L << shift) - 1)) == 0) {
+                cascade(level, (int) (tick >>> shift) & wheelMask, tick);
+            }
+        }
+        int index = (int) tick & wheelMask;
+        Timeout head = wheels[0][index];
+        wheels[0][index] = null;
+        while (head != null) {
+            Timeout next = head.next;
+            head.prev = null;
+            head.next = null;
+            head.level = -1;
+            expire(head, tick);
+            head = next;
+        }
+    }
+
+    private void cascade(int level, int index, long tick) {
+        Timeout head = wheels[level][index];
+        wheels[level][index] = null;
+        while (head != null) {
+            Timeout next = head.next;
+            head.prev = null;
+            head.next = null;
+            head.level = -1;
+            insert(head, tick);
+            head = next;
+        }
+    }
+
+    /**
+     * Кладет таймер в корзину относительно обрабатываемого тика.
+     */
+    private void insert(Timeout timeout, long tick) {
+        long expiration = timeout.expirationTick;
+        if (expiration < tick) {
+            // Опоздавший таймер (например, задержка короче тика) срабатывает сразу.
+            expire(timeout, tick);
+            return;
+        }
+        long diff = expiration ^ tick;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / wheelBits;
+        int index = (int) (expiration >>> (wheelBits * level)) & wheelMask;
+        Timeout head = wheels[level][index];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        timeout.level = level;
+        wheels[level][index] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.level < 0) {
+            // Таймер еще в очереди добавления или уже сработал.
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            int index = (int) (timeout.expirationTick >>> (wheelBits * timeout.level)) & wheelMask;
+            wheels[timeout.level][index] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private void expire(Timeout timeout, long tick) {
+        if (timeout.periodTicks > 0) {
+            if (timeout.state.get() != PENDING) {
+                return;
+            }
+            if (dispatch(timeout)) {
+                timeout.expirationTick = Math.max(timeout.expirationTick, tick) + timeout.periodTicks;
+                insert(timeout, tick);
+            }
+        } else if (timeout.state.compareAndSet(PENDING, EXPIRED) && dispatch(timeout)) {
+            timeout.future.complete(null);
+        }
+    }
+
+    /**
+     * Передает задачу на рабочий пул. Если пул ее не принял, future таймера
+     * завершается исключением пула.
+     */
+    private boolean dispatch(Timeout timeout) {
+        try {
+            dispatcher.execute(timeout.task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            timeout.reject(e);
+            return false;
+        }
+    }
+
+    /**
+     * Сообщает об исключении задачи обработчику текущего потока и пробрасывает его дальше.
+     */
+    private static Runnable reportingFailures(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                throw e;
+            }
+        };
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+}
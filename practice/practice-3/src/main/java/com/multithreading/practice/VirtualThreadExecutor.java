@@ -1,8 +1,12 @@
 package com.multithreading.practice;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Класс для работы с виртуальными потоками (Java 21+).
@@ -13,8 +17,24 @@ import java.util.concurrent.atomic.AtomicInteger;
  * - Используйте Executors.newVirtualThreadPerTaskExecutor() для создания ExecutorService
  * - Виртуальные потоки идеальны для I/O-bound задач
  * - Не забывайте закрывать ExecutorService (try-with-resources)
+ * 
+ * Виртуальных потоков можно запустить миллион, но нижестоящий сервис
+ * миллион одновременных запросов не выдержит. Для этого есть bulkhead:
+ * лимит одновременно выполняемых задач на именованный ресурс. Лимит
+ * реализован через Semaphore, а ожидание на нем паркует виртуальный поток
+ * и освобождает носитель (в отличие от ожидания внутри synchronized).
+ * Потоки называются "ресурс#номер", чтобы PinningMonitor мог разложить
+ * закрепления по типам задач.
+ * 
+ * Группы задач выполняются структурно (по аналогии с StructuredTaskScope):
+ * - invokeAllOrFail() - политика shutdown-on-failure: первая ошибка сразу
+ *   отменяет остальные задачи, а не ждет их в порядке отправки;
+ * - invokeFirstSuccess() - политика shutdown-on-success: первый успешный
+ *   результат отменяет остальные задачи.
+ * Метод возвращает управление только после завершения всех виртуальных потоков группы.
  */
 public class VirtualThreadExecutor {
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
     
     /**
      * Выполняет список задач в виртуальных потоках.
@@ -27,24 +47,200 @@ public class VirtualThreadExecutor {
     public int executeWithVirtualThreads(List<Runnable> tasks) 
             throws ExecutionException, InterruptedException {
         AtomicInteger counter = new AtomicInteger(0);
+        List<Callable<Void>> callables = new java.util.ArrayList<>();
+        
+        for (Runnable task : tasks) {
+            callables.add(() -> {
+                task.run();
+                counter.incrementAndGet();
+                return null;
+            });
+        }
+        invokeAllOrFail(Thread.ofVirtual().factory(), callables);
+        
+        return counter.get();
+    }
+    
+    /**
+     * Выполняет задачи в виртуальных потоках и возвращает все результаты.
+     * При первой ошибке остальные задачи прерываются.
+     * 
+     * @param tasks задачи для выполнения
+     * @return результаты в порядке задач
+     * @throws ExecutionException с первой ошибкой в качестве причины
+     * @throws InterruptedException если поток был прерван; задачи при этом отменяются
+     */
+    public <T> List<T> invokeAllOrFail(List<? extends Callable<T>> tasks)
+            throws ExecutionException, InterruptedException {
+        return invokeAllOrFail(Thread.ofVirtual().factory(), tasks);
+    }
+    
+    /**
+     * Выполняет задачи в виртуальных потоках и возвращает первый успешный результат.
+     * Остальные задачи после этого прерываются.
+     * 
+     * @param tasks задачи для выполнения, хотя бы одна
+     * @return результат задачи, завершившейся успешно первой
+     * @throws ExecutionException если все задачи завершились с ошибкой;
+     *         ошибки всех задач добавлены в getSuppressed()
+     * @throws InterruptedException если поток был прерван; задачи при этом отменяются
+     */
+    public <T> T invokeFirstSuccess(List<? extends Callable<T>> tasks)
+            throws ExecutionException, InterruptedException {
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("Нужна хотя бы одна задача");
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean won = new AtomicBoolean(false);
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicInteger remainingFailures = new AtomicInteger(tasks.size());
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new java.util.ArrayList<>();
         
         try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-            List<Future<Void>> futures = new java.util.ArrayList<>();
-            
-            for (Runnable task : tasks) {
+            for (Callable<T> task : tasks) {
                 futures.add(executor.submit(() -> {
-                    task.run();
-                    counter.incrementAndGet();
+                    try {
+                        T value = task.call();
+                        if (won.compareAndSet(false, true)) {
+                            result.set(value);
+                            done.countDown();
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                        if (remainingFailures.decrementAndGet() == 0) {
+                            done.countDown();
+                        }
+                    }
                     return null;
                 }));
             }
-            
-            for (Future<Void> future : futures) {
-                future.get();
+            awaitThenCancel(done, futures);
+        }
+        
+        if (won.get()) {
+            return result.get();
+        }
+        ExecutionException error = new ExecutionException("Все задачи завершились с ошибкой", failures.peek());
+        failures.forEach(error::addSuppressed);
+        throw error;
+    }
+    
+    /**
+     * Задает лимит одновременно выполняемых задач для ресурса.
+     * 
+     * @param resource имя ресурса, например нижестоящего сервиса
+     * @param maxConcurrent сколько задач ресурса может выполняться одновременно
+     */
+    public void registerBulkhead(String resource, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent должен быть больше 0");
+        }
+        if (bulkheads.putIfAbsent(resource, new Bulkhead(new Semaphore(maxConcurrent), maxConcurrent)) != null) {
+            throw new IllegalStateException("Bulkhead для " + resource + " уже зарегистрирован");
+        }
+    }
+    
+    /**
+     * Выполняет задачи ресурса, каждую в своем виртуальном потоке, но не больше
+     * лимита bulkhead одновременно. Остальные виртуальные потоки ждут на семафоре.
+     * 
+     * @param resource имя зарегистрированного ресурса
+     * @param tasks задачи для выполнения
+     * @return результаты в порядке задач
+     * @throws ExecutionException если задача завершилась с ошибкой
+     * @throws InterruptedException если поток был прерван
+     */
+    public <T> List<T> executeWithBulkhead(String resource, List<Callable<T>> tasks)
+            throws ExecutionException, InterruptedException {
+        Bulkhead registered = bulkheads.get(resource);
+        if (registered == null) {
+            throw new IllegalArgumentException("Bulkhead для " + resource + " не зарегистрирован");
+        }
+        Semaphore bulkhead = registered.permits();
+        ThreadFactory factory = Thread.ofVirtual().name(resource + PinningMonitor.TYPE_SEPARATOR, 0).factory();
+        List<Callable<T>> limited = new java.util.ArrayList<>();
+        
+        for (Callable<T> task : tasks) {
+            limited.add(() -> {
+                bulkhead.acquire();
+                try {
+                    return task.call();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        }
+        return invokeAllOrFail(factory, limited);
+    }
+    
+    /**
+     * Сколько задач ресурса выполняется прямо сейчас.
+     */
+    public int getInFlight(String resource) {
+        Bulkhead bulkhead = bulkheads.get(resource);
+        return bulkhead == null ? 0 : bulkhead.limit() - bulkhead.permits().availablePermits();
+    }
+    
+    private static <T> List<T> invokeAllOrFail(ThreadFactory factory, List<? extends Callable<T>> tasks)
+            throws ExecutionException, InterruptedException {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        Object[] results = new Object[tasks.size()];
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger remaining = new AtomicInteger(tasks.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<?>> futures = new java.util.ArrayList<>();
+        
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(factory)) {
+            for (int i = 0; i < tasks.size(); i++) {
+                final int index = i;
+                Callable<T> task = tasks.get(i);
+                futures.add(executor.submit(() -> {
+                    try {
+                        results[index] = task.call();
+                        if (remaining.decrementAndGet() == 0) {
+                            done.countDown();
+                        }
+                    } catch (Throwable e) {
+                        // Ошибки задач, прерванных из-за первой ошибки, не интересны.
+                        if (failure.compareAndSet(null, e)) {
+                            done.countDown();
+                        }
+                    }
+                    return null;
+                }));
             }
+            awaitThenCancel(done, futures);
         }
         
-        return counter.get();
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new ExecutionException(error);
+        }
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) java.util.Arrays.asList(results);
+        return list;
+    }
+    
+    /**
+     * Ждет исхода группы и прерывает задачи, которые еще выполняются.
+     * close() ExecutorService после этого дождется их завершения.
+     */
+    private static void awaitThenCancel(CountDownLatch done, List<Future<?>> futures) throws InterruptedException {
+        try {
+            done.await();
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    /**
+     * Семафор bulkhead и его лимит; регистрируются одной записью.
+     */
+    private record Bulkhead(Semaphore permits, int limit) {
     }
 }
-
@@ -0,0 +1,91 @@
+package com.multithreading.practice;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Гистограмма длительностей только за последние несколько интервалов.
+ *
+ * Накопительная LatencyHistogram помнит всю историю: после того как задачи
+ * ускорились или замедлились, ее перцентили еще долго показывают старую картину.
+ * Здесь записи идут в LatencyHistogram текущего интервала, а перцентили
+ * считаются по WINDOWS последним интервалам. Интервалы хранятся по кругу:
+ * когда приходит время переиспользовать ячейку, ее гистограмма заменяется
+ * новой, и самый старый интервал выпадает из статистики.
+ *
+ * Запись, начатая на границе интервалов, может попасть в уже вытесненную
+ * гистограмму и потеряться; для оценки недавнего перцентиля это не важно.
+ */
+public class WindowedLatencyHistogram {
+    private static final int WINDOWS = 4;
+
+    /** Гистограмма одного интервала; номер интервала отсчитывается от создания. */
+    private record Window(long epoch, LatencyHistogram histogram) {
+    }
+
+    private final long intervalNanos;
+    private final long createdNanos = System.nanoTime();
+    private final AtomicReferenceArray<Window> windows = new AtomicReferenceArray<>(WINDOWS);
+
+    /**
+     * @param interval длительность одного интервала; статистика покрывает
+     *                 от WINDOWS - 1 до WINDOWS последних интервалов
+     */
+    public WindowedLatencyHistogram(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Интервал должен быть положительным");
+        }
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Записывает длительность в наносекундах в гистограмму текущего интервала.
+     */
+    public void record(long nanos) {
+        long epoch = currentEpoch();
+        int slot = (int) (epoch % WINDOWS);
+        for (;;) {
+            Window window = windows.get(slot);
+            if (window != null && window.epoch() == epoch) {
+                window.histogram().record(nanos);
+                return;
+            }
+            if (window != null && window.epoch() > epoch) {
+                // Поток задержался, а ячейку уже занял следующий круг.
+                return;
+            }
+            windows.compareAndSet(slot, window, new Window(epoch, new LatencyHistogram()));
+        }
+    }
+
+    /**
+     * Сколько записей попало в последние WINDOWS интервалов.
+     */
+    public long getCount() {
+        return addRecentCountsTo(new long[LatencyHistogram.bucketCount()]);
+    }
+
+    /**
+     * Перцентиль по последним WINDOWS интервалам, как LatencyHistogram.percentile().
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = new long[LatencyHistogram.bucketCount()];
+        return LatencyHistogram.percentile(snapshot, addRecentCountsTo(snapshot), quantile);
+    }
+
+    private long addRecentCountsTo(long[] snapshot) {
+        long oldest = currentEpoch() - WINDOWS + 1;
+        long total = 0;
+        for (int slot = 0; slot < WINDOWS; slot++) {
+            Window window = windows.get(slot);
+            if (window != null && window.epoch() >= oldest) {
+                total += window.histogram().addCountsTo(snapshot);
+            }
+        }
+        return total;
+    }
+
+    private long currentEpoch() {
+        return (System.nanoTime() - createdNanos) / intervalNanos;
+    }
+}
@@ -0,0 +1,332 @@
+package com.multithreading.practice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Пул с перехватом работы (work stealing) на деках Chase-Lev.
+ *
+ * В ThreadPoolExecutor все задачи, в том числе порожденные самими рабочими
+ * потоками, проходят через одну LinkedBlockingQueue с блокировками на голове
+ * и хвосте. Здесь у каждого рабочего потока своя дека:
+ * - задача, отправленная из рабочего потока, кладется в его деку без блокировок;
+ * - владелец забирает задачи с того же конца (LIFO): свежие задачи горячие в кэше;
+ * - простаивающий поток крадет с другого конца (FIFO) у случайно выбранной жертвы:
+ *   старые задачи обычно крупнее, и воры реже мешают владельцу.
+ * Задачи извне пула попадают в общую очередь и разбираются потоками по очереди.
+ *
+ * Как и ThreadPoolExecutor, пул вызывает beforeExecute() и afterExecute() вокруг
+ * каждой задачи, так что наследник может добавить метрики и проверки.
+ */
+public class WorkStealingExecutor extends AbstractExecutorService {
+    private final Worker[] workers;
+    private final Queue<Runnable> submissions = new ConcurrentLinkedQueue<>();
+    /** Простаивающие потоки; запись может быть устаревшей, ее проверяет флаг Worker.idle. */
+    private final Queue<Worker> idleWorkers = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch terminated;
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private final AtomicLong completedCount = new AtomicLong(0);
+    private volatile boolean shutdown;
+
+    public WorkStealingExecutor(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism должен быть больше 0");
+        }
+        this.workers = new Worker[parallelism];
+        this.terminated = new CountDownLatch(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("WorkStealingExecutor завершен");
+        }
+        if (Thread.currentThread() instanceof Worker worker && worker.owner() == this) {
+            worker.deque.push(task);
+        } else {
+            submissions.add(task);
+        }
+        signalWork();
+    }
+
+    /**
+     * Число задач, ожидающих выполнения (в общей очереди и деках), приблизительно.
+     */
+    public int getQueuedTaskCount() {
+        long queued = submissions.size();
+        for (Worker worker : workers) {
+            queued += worker.deque.size();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, queued);
+    }
+
+    /**
+     * Сколько потоков выполняют задачи прямо сейчас.
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getPoolSize() {
+        return workers.length;
+    }
+
+    public long getCompletedTaskCount() {
+        return completedCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> pending = new ArrayList<>();
+        Runnable task;
+        while ((task = submissions.poll()) != null) {
+            pending.add(task);
+        }
+        for (Worker worker : workers) {
+            while ((task = worker.deque.steal()) != null) {
+                pending.add(task);
+            }
+            worker.interrupt();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * Вызывается в рабочем потоке перед выполнением задачи.
+     */
+    protected void beforeExecute(Thread thread, Runnable task) {
+    }
+
+    /**
+     * Вызывается в рабочем потоке после выполнения задачи.
+     *
+     * @param error исключение, с которым завершилась задача, или null
+     */
+    protected void afterExecute(Runnable task, Throwable error) {
+    }
+
+    /**
+     * Будит один простаивающий поток, если такой есть.
+     */
+    private void signalWork() {
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            if (worker.idle.compareAndSet(true, false)) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    private final class Worker extends Thread {
+        private final ChaseLevDeque deque = new ChaseLevDeque();
+        private final AtomicBoolean idle = new AtomicBoolean(false);
+
+        Worker(int index) {
+            super("work-stealing-" + index);
+            setDaemon(true);
+        }
+
+        WorkStealingExecutor owner() {
+            return WorkStealingExecutor.this;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (;;) {
+                    Runnable task = findTask();
+                    if (task != null) {
+                        runTask(task);
+                        continue;
+                    }
+                    if (shutdown) {
+                        return;
+                    }
+                    // Сначала объявляем себя простаивающим, потом проверяем еще раз:
+                    // задача, добавленная после этой проверки, разбудит нас через signalWork().
+                    if (idle.compareAndSet(false, true)) {
+                        idleWorkers.add(this);
+                    }
+                    task = findTask();
+                    if (task != null) {
+                        idle.set(false);
+                        runTask(task);
+                    } else if (!shutdown) {
+                        LockSupport.park(WorkStealingExecutor.this);
+                        idle.set(false);
+                    }
+                }
+            } finally {
+                terminated.countDown();
+            }
+        }
+
+        private Runnable findTask() {
+            Runnable task = deque.pop();
+            if (task != null) {
+                return task;
+            }
+            task = submissions.poll();
+            if (task != null) {
+                return task;
+            }
+            // Обход жертв со случайного места, чтобы воры не толпились у одной деки.
+            int start = ThreadLocalRandom.current().nextInt(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                Worker victim = workers[(start + i) % workers.length];
+                if (victim != this && (task = victim.deque.steal()) != null) {
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private void runTask(Runnable task) {
+            activeCount.incrementAndGet();
+            Throwable error = null;
+            try {
+                beforeExecute(this, task);
+                task.run();
+            } catch (Throwable e) {
+                // Поток продолжает работу; FutureTask сохраняет исключение сам.
+                error = e;
+            } finally {
+                afterExecute(task, error);
+                activeCount.decrementAndGet();
+                completedCount.incrementAndGet();
+                // Прерывание, адресованное задаче, не должно достаться следующей.
+                if (!shutdown) {
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    /**
+     * Дека Chase-Lev. push() и pop() вызывает только владелец (нижний конец),
+     * steal() - любой поток (верхний конец). Конфликт за последний элемент
+     * разрешается CAS по top.
+     *
+     * top и bottom volatile: в Java это последовательная согласованность, так что
+     * отдельный барьер между записью bottom и чтением top в pop() не нужен.
+     * Запись элемента публикуется последующей volatile-записью bottom.
+     */
+    static final class ChaseLevDeque {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final AtomicLong top = new AtomicLong(0);
+        private volatile long bottom;
+        private volatile Runnable[] array = new Runnable[INITIAL_CAPACITY];
+
+        void push(Runnable task) {
+            long b = bottom;
+            long t = top.get();
+            Runnable[] a = array;
+            if (b - t >= a.length) {
+                a = grow(a, t, b);
+            }
+            a[(int) (b & (a.length - 1))] = task;
+            bottom = b + 1;
+        }
+
+        Runnable pop() {
+            long b = bottom - 1;
+            Runnable[] a = array;
+            bottom = b;
+            long t = top.get();
+            if (t > b) {
+                // Дека была пуста.
+                bottom = b + 1;
+                return null;
+            }
+            int index = (int) (b & (a.length - 1));
+            Runnable task = a[index];
+            if (t == b) {
+                // Последний элемент: соревнуемся с ворами.
+                if (!top.compareAndSet(t, t + 1)) {
+                    task = null;
+                }
+                bottom = b + 1;
+            } else {
+                // Воры берут только элементы ниже b, слот можно освободить.
+                a[index] = null;
+            }
+            return task;
+        }
+
+        Runnable steal() {
+            for (;;) {
+                long t = top.get();
+                long b = bottom;
+                if (t >= b) {
+                    return null;
+                }
+                Runnable[] a = array;
+                Runnable task = a[(int) (t & (a.length - 1))];
+                if (task != null && top.compareAndSet(t, t + 1)) {
+                    return task;
+                }
+                // Другой вор или владелец успел раньше - пробуем следующий элемент.
+            }
+        }
+
+        int size() {
+            return (int) Math.max(0L, bottom - top.get());
+        }
+
+        private Runnable[] grow(Runnable[] old, long t, long b) {
+            Runnable[] grown = new Runnable[old.length * 2];
+            for (long i = t; i < b; i++) {
+                grown[(int) (i & (grown.length - 1))] = old[(int) (i & (old.length - 1))];
+            }
+            // Старый массив не очищается: вор, прочитавший его, получит верный элемент.
+            array = grown;
+            return grown;
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package com.multithreading.practice;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
 import org.junit.jupiter.api.Timeout;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +35,20 @@ import static org.junit.jupiter.api.Assertions.*;
  * 2. Реализуйте параллельную обработку списка задач через ParallelProcessor
  * 3. Реализуйте использование виртуальных потоков через VirtualThreadExecutor (Java 21+)
  * 4. Реализуйте правильное завершение ExecutorService
+ * 5. Реализуйте ограниченную очередь с политиками отказа (RejectionPolicy)
+ * 6. Реализуйте задачи с дедлайном и режим EARLIEST_DEADLINE_FIRST
+ * 7. Переведите ParallelProcessor на общий пул и обработку чанками
+ * 8. Реализуйте потоковый режим ParallelProcessor с ограниченным окном
+ * 9. Реализуйте bulkhead для виртуальных потоков и подсчет закреплений через JFR
+ * 10. Реализуйте структурный fan-out: shutdown-on-failure и shutdown-on-success
+ * 11. Реализуйте KeyedTaskProcessor: последовательно по ключу, параллельно между ключами
+ * 12. Реализуйте адаптивный размер пула TaskProcessor (hill climbing)
+ * 13. Реализуйте метрики задач по тегам (LatencyHistogram) с экспортом через JMX
+ * 14. Реализуйте дублирование медленных задач (hedging) с бюджетом
+ * 15. Реализуйте планировщик на иерархическом колесе таймеров (TimingWheelScheduler)
+ * 16. Реализуйте перегрузки ParallelProcessor для int[], long[] и double[] без упаковки
+ * 17. Реализуйте WorkStealingExecutor на деках Chase-Lev как бэкенд TaskProcessor
+ * 18. Реализуйте EventLoopExecutor: цикл событий на ядро с MPSC-очередью
  * 
  * Подсказки:
  * - Используйте Executors.newFixedThreadPool() для создания пула потоков
@@ -73,6 +104,176 @@ class ExecutorServiceTest {
             "Результаты должны быть удвоены");
     }
 
+    /**
+     * Тест проверяет обработку большого списка на общем пуле чанками.
+     * Порядок результатов должен совпадать с порядком входа, а ошибка в элементе - пробрасываться.
+     */
+    @Test
+    @Timeout(10)
+    void testChunkedParallelProcessing() throws InterruptedException {
+        ParallelProcessor processor = new ParallelProcessor();
+        List<Integer> input = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            input.add(i);
+        }
+        
+        for (int round = 0; round < 3; round++) {
+            List<Integer> results = processor.processInParallel(input, value -> value * 2, 8);
+            assertEquals(input.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i * 2, results.get(i), "Порядок результатов должен совпадать с порядком входа");
+            }
+        }
+        
+        List<Integer> linked = new LinkedList<>(input.subList(0, 5000));
+        List<Integer> fromLinked = processor.processInParallel(linked, value -> value + 1, 4);
+        assertEquals(5000, fromLinked.get(4999),
+            "Список без произвольного доступа тоже должен обрабатываться по порядку");
+        fromLinked.add(5001);
+        assertEquals(5001, fromLinked.size(), "Результат должен быть изменяемым списком");
+        
+        List<Integer> empty = processor.processInParallel(List.<Integer>of(), value -> value, 4);
+        assertTrue(empty.isEmpty(), "Пустой вход дает пустой результат");
+        
+        // Вложенные вызовы на общем ограниченном пуле не должны ждать друг друга
+        List<Integer> block = input.subList(0, 2048);
+        List<Integer> nested = processor.processInParallel(block, value -> {
+            try {
+                return processor.processInParallel(block, item -> item + value, 2).get(value);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, 2);
+        assertEquals(2 * 2047, nested.get(2047));
+        
+        assertThrows(RuntimeException.class, () -> processor.processInParallel(input, value -> {
+            if (value == 50_000) {
+                throw new IllegalStateException("Ошибка в элементе");
+            }
+            return value;
+        }, 8));
+    }
+
+    /**
+     * Тест проверяет перегрузки ParallelProcessor для примитивных массивов:
+     * результаты пишутся в примитивный массив по индексу, без упаковки.
+     */
+    @Test
+    @Timeout(10)
+    void testPrimitiveParallelProcessing() throws InterruptedException {
+        ParallelProcessor processor = new ParallelProcessor();
+        int size = 100_000;
+        int[] ints = new int[size];
+        long[] longs = new long[size];
+        double[] doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = i;
+            longs[i] = i * 1_000_000_000L;
+            doubles[i] = i / 2.0;
+        }
+        
+        int[] intResults = processor.processInParallel(ints, value -> value * 2);
+        long[] longResults = processor.processInParallel(longs, value -> value + 1);
+        double[] doubleResults = processor.processInParallel(doubles, value -> value * value);
+        for (int i = 0; i < size; i++) {
+            assertEquals(i * 2, intResults[i]);
+            assertEquals(i * 1_000_000_000L + 1, longResults[i]);
+            assertEquals((i / 2.0) * (i / 2.0), doubleResults[i]);
+        }
+        
+        // Запись в заранее выделенный массив, в том числе на месте
+        processor.processInParallel(ints, ints, value -> -value);
+        assertEquals(-(size - 1), ints[size - 1]);
+        assertThrows(IllegalArgumentException.class,
+            () -> processor.processInParallel(ints, new int[size - 1], value -> value));
+        
+        List<String> strings = processor.processInParallelToObj(new int[] {1, 2, 3}, value -> "v" + value);
+        assertEquals(List.of("v1", "v2", "v3"), strings);
+        
+        // Пустые массивы дают пустой результат
+        assertEquals(0, processor.processInParallel(new int[0], value -> value).length);
+        assertEquals(0, processor.processInParallel(new long[0], value -> value).length);
+        assertEquals(0, processor.processInParallel(new double[0], value -> value).length);
+        assertTrue(processor.processInParallelToObj(new int[0], value -> "v" + value).isEmpty());
+        assertTrue(processor.processInParallelToObj(new long[0], value -> "v" + value).isEmpty());
+        assertTrue(processor.processInParallelToObj(new double[0], value -> "v" + value).isEmpty());
+        
+        assertThrows(RuntimeException.class, () -> processor.processInParallel(longs, value -> {
+            if (value == 50_000 * 1_000_000_000L) {
+                throw new IllegalStateException("Ошибка в элементе");
+            }
+            return value;
+        }));
+    }
+
+    /**
+     * Тест проверяет потоковый режим ParallelProcessor.
+     * В работе должно быть не больше maxInFlight элементов, а результаты - идти в порядке входа.
+     */
+    @Test
+    @Timeout(10)
+    void testStreamingParallelProcessing() {
+        ParallelProcessor processor = new ParallelProcessor();
+        int maxInFlight = 8;
+        AtomicInteger pulled = new AtomicInteger(0);
+        AtomicInteger consumed = new AtomicInteger(0);
+        AtomicInteger maxAhead = new AtomicInteger(0);
+        
+        // Источник не знает своей длины заранее
+        Iterator<Integer> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < 10_000;
+            }
+            
+            @Override
+            public Integer next() {
+                int ahead = pulled.incrementAndGet() - consumed.get();
+                maxAhead.accumulateAndGet(ahead, Math::max);
+                return pulled.get() - 1;
+            }
+        };
+        
+        Iterator<Integer> results = processor.processStream(source, value -> {
+            if (value % 100 == 0) {
+                // Голова окна иногда завершается позже остальных
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            return value * 2;
+        }, maxInFlight);
+        
+        int expected = 0;
+        while (results.hasNext()) {
+            assertEquals(expected * 2, results.next(), "Результаты должны идти в порядке входа");
+            consumed.incrementAndGet();
+            expected++;
+        }
+        assertEquals(10_000, expected);
+        assertTrue(maxAhead.get() <= maxInFlight + 1,
+            "Вперед потребителя должно читаться не больше maxInFlight элементов: " + maxAhead.get());
+        
+        try (Stream<Integer> stream = processor.processStream(
+                Stream.iterate(0, i -> i + 1).limit(1000), i -> i + 1, 4)) {
+            assertEquals(500_500L, stream.mapToLong(Integer::longValue).sum());
+        }
+        
+        AtomicInteger failingPulled = new AtomicInteger(0);
+        Iterator<Integer> failingSource = Stream.iterate(1, i -> i + 1).limit(100)
+            .peek(value -> failingPulled.incrementAndGet()).iterator();
+        Iterator<Integer> failing = processor.processStream(failingSource, value -> {
+            if (value == 2) {
+                throw new IllegalStateException("Ошибка в элементе");
+            }
+            return value;
+        }, 2);
+        assertEquals(1, failing.next());
+        assertThrows(RuntimeException.class, failing::next);
+        int pulledAtFailure = failingPulled.get();
+        assertFalse(failing.hasNext(), "После ошибки итератор должен быть пуст");
+        assertThrows(NoSuchElementException.class, failing::next);
+        assertEquals(pulledAtFailure, failingPulled.get(), "После ошибки вход не должен читаться");
+    }
+
     /**
      * Тест проверяет работу виртуальных потоков (требует Java 21+).
      * VirtualThreadExecutor должен выполнить все задачи в виртуальных потоках.
@@ -99,6 +300,679 @@ class ExecutorServiceTest {
             "Все виртуальные потоки должны выполниться");
     }
 
+    /**
+     * Тест проверяет bulkhead для виртуальных потоков и подсчет закреплений.
+     * Одновременно должно выполняться не больше лимита задач ресурса,
+     * а блокировка внутри synchronized должна попасть в счетчик закреплений.
+     */
+    @Test
+    @Timeout(20)
+    void testVirtualThreadBulkhead() throws Exception {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor();
+        executor.registerBulkhead("db", 10);
+        executor.registerBulkhead("legacy", 2);
+        AtomicInteger inFlight = new AtomicInteger(0);
+        AtomicInteger maxInFlight = new AtomicInteger(0);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        
+        for (int i = 0; i < 1000; i++) {
+            final int id = i;
+            tasks.add(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                inFlight.decrementAndGet();
+                return id;
+            });
+        }
+        
+        List<Integer> results = executor.executeWithBulkhead("db", tasks);
+        
+        assertEquals(1000, results.size());
+        assertEquals(999, results.get(999), "Результаты должны идти в порядке задач");
+        assertTrue(maxInFlight.get() <= 10, "Одновременно не больше 10 задач: " + maxInFlight.get());
+        assertEquals(0, executor.getInFlight("db"));
+        
+        Object monitor = new Object();
+        try (PinningMonitor pinning = new PinningMonitor(Duration.ofMillis(5)).start()) {
+            List<Callable<Void>> pinningTasks = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                pinningTasks.add(() -> {
+                    synchronized (monitor) {
+                        // sleep внутри synchronized закрепляет виртуальный поток на носителе
+                        Thread.sleep(20);
+                    }
+                    return null;
+                });
+            }
+            executor.executeWithBulkhead("legacy", pinningTasks);
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pinning.getPinnedCounts().getOrDefault("legacy", 0L) == 0
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(pinning.getPinnedCounts().getOrDefault("legacy", 0L) > 0,
+                "Закрепление должно быть засчитано типу задачи legacy");
+            assertFalse(pinning.getPinnedCounts().containsKey("db"));
+        }
+    }
+
+    /**
+     * Тест проверяет структурный fan-out в VirtualThreadExecutor.
+     * Первая ошибка или первый успех должны сразу отменять остальные задачи.
+     */
+    @Test
+    @Timeout(10)
+    void testStructuredFanOut() throws Exception {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor();
+        AtomicInteger slowCompleted = new AtomicInteger(0);
+        
+        // Отмененная задача либо прерывается во сне, либо не запускается вовсе
+        Callable<String> slow = () -> {
+            Thread.sleep(5000);
+            slowCompleted.incrementAndGet();
+            return "slow";
+        };
+        
+        assertEquals(List.of("a", "b"), executor.invokeAllOrFail(List.of(() -> "a", () -> "b")));
+        
+        // shutdown-on-failure: не ждем медленные задачи после ошибки
+        long start = System.nanoTime();
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> executor.invokeAllOrFail(List.of(slow, () -> {
+                throw new IllegalStateException("Ошибка");
+            }, slow)));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2),
+            "Ошибка должна вернуться, не дожидаясь медленных задач");
+        assertEquals(0, slowCompleted.get(), "Медленные задачи должны быть отменены");
+        
+        // shutdown-on-success: первый успех отменяет остальных
+        start = System.nanoTime();
+        assertEquals("fast", executor.invokeFirstSuccess(List.of(slow, () -> "fast", slow)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0, slowCompleted.get());
+        
+        // Если все задачи упали, ошибки собираются в одно исключение
+        ExecutionException allFailed = assertThrows(ExecutionException.class,
+            () -> executor.invokeFirstSuccess(List.<Callable<String>>of(
+                () -> { throw new IllegalStateException("1"); },
+                () -> { throw new IllegalArgumentException("2"); })));
+        assertEquals(2, allFailed.getSuppressed().length);
+    }
+
+    /**
+     * Тест проверяет адаптивный размер пула TaskProcessor. На блокирующей
+     * работе с очередью пропускная способность растет вместе с числом потоков,
+     * поэтому контроллер должен увеличить пул, не выходя за границы.
+     */
+    @Test
+    @Timeout(20)
+    void testAdaptivePoolSize() throws Exception {
+        TaskProcessor processor = new TaskProcessor(2, 32, Duration.ofMillis(100));
+        assertEquals(2, processor.getPoolSize());
+        List<Future<Integer>> futures = new ArrayList<>();
+        
+        for (int i = 0; i < 3000; i++) {
+            final int taskId = i;
+            futures.add(processor.processTask(() -> {
+                Thread.sleep(5);
+                return taskId;
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).get());
+        }
+        
+        List<PoolSizeController.Decision> decisions = processor.getSizingDecisions();
+        assertFalse(decisions.isEmpty(), "Контроллер должен принимать решения");
+        int maxSize = decisions.stream().mapToInt(PoolSizeController.Decision::newSize).max().orElse(0);
+        assertTrue(maxSize > 4, "Пул должен вырасти под блокирующей нагрузкой: " + decisions);
+        assertTrue(decisions.stream().allMatch(d -> d.newSize() >= 2 && d.newSize() <= 32),
+            "Размер пула должен оставаться в границах");
+        assertTrue(processor.shutdownGracefully(5, TimeUnit.SECONDS));
+        
+        // Без очереди пул не растет: лишние потоки не помогут
+        PoolSizeController controller = new PoolSizeController(1, 8);
+        controller.adjust(100, true);
+        assertEquals(2, controller.getSize());
+        controller.adjust(200, false);
+        assertEquals(1, controller.getSize());
+    }
+
+    /**
+     * Тест проверяет метрики TaskProcessor: ожидание в очереди и время
+     * выполнения записываются отдельно по тегам и доступны через снимок и JMX.
+     */
+    @Test
+    @Timeout(10)
+    void testTaskMetrics() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_000, histogram.percentile(0.5), 500_000 * 0.125, "Погрешность не больше 12.5%");
+        assertEquals(990_000, histogram.percentile(0.99), 990_000 * 0.125);
+        
+        TaskProcessor processor = new TaskProcessor(2);
+        ObjectName name = processor.registerMBean("metrics-test");
+        // Прогрев: на холодной JVM первые задачи выполняются в интерпретаторе
+        // и вместе с загрузкой классов занимают миллисекунды, что попало бы в p99 быстрых задач
+        for (int i = 0; i < 1000; i++) {
+            processor.processTask(() -> 1, "warmup").get();
+        }
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(processor.processTask(() -> {
+                Thread.sleep(20);
+                return 1;
+            }, "slow"));
+            futures.add(processor.processTask(() -> 1, "fast"));
+        }
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(0, server.getAttribute(name, "QueueDepth"));
+        assertTrue((Long) server.getAttribute(name, "CompletedTaskCount") > 0);
+        
+        // afterExecute вызывается уже после завершения Future, поэтому
+        // точные значения проверяем после остановки пула
+        assertTrue(processor.shutdownGracefully(5, TimeUnit.SECONDS));
+        TaskMetrics.Snapshot snapshot = processor.getMetrics();
+        assertEquals(1080, snapshot.completedTasks());
+        assertTrue(snapshot.throughput() > 0);
+        TaskMetrics.TagSnapshot slow = snapshot.tags().get("slow");
+        TaskMetrics.TagSnapshot fast = snapshot.tags().get("fast");
+        assertEquals(40, slow.completed());
+        assertTrue(slow.runTimeNanos().p50() >= TimeUnit.MILLISECONDS.toNanos(15),
+            "Время выполнения медленных задач должно отражать sleep");
+        assertTrue(fast.runTimeNanos().p99() < slow.runTimeNanos().p50());
+        // 2 потока на 40 задач по 20 мс: задачи долго ждут в очереди, хотя сами быстрые
+        assertTrue(fast.queueWaitNanos().p99() > TimeUnit.MILLISECONDS.toNanos(100),
+            "Ожидание в очереди должно отражать насыщение пула");
+        assertFalse(server.isRegistered(name), "MBean должен сниматься с регистрации при завершении");
+    }
+
+    /**
+     * Тест проверяет processHedged: медленная первая попытка дублируется,
+     * побеждает быстрый дубликат, проигравшая попытка прерывается.
+     * Бюджет ограничивает долю дубликатов.
+     */
+    @Test
+    @Timeout(10)
+    void testHedgedExecution() throws Exception {
+        // Задержка дублирования считается по недавней статистике: старые интервалы забываются
+        WindowedLatencyHistogram recent = new WindowedLatencyHistogram(Duration.ofMillis(50));
+        for (int i = 0; i < 100; i++) {
+            recent.record(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(100, recent.getCount());
+        assertTrue(recent.percentile(0.95) >= TimeUnit.MILLISECONDS.toNanos(10));
+        Thread.sleep(250);
+        assertEquals(0, recent.getCount(), "Записи старше четырех интервалов не учитываются");
+        recent.record(TimeUnit.MICROSECONDS.toNanos(100));
+        assertTrue(recent.percentile(0.95) < TimeUnit.MILLISECONDS.toNanos(1));
+        
+        TaskProcessor processor = new TaskProcessor(4);
+        processor.setHedgeBudget(1.0);
+        AtomicInteger attempts = new AtomicInteger(0);
+        CountDownLatch slowInterrupted = new CountDownLatch(1);
+        
+        // Первая попытка "зависает", дубликат отвечает сразу
+        Callable<String> task = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    slowInterrupted.countDown();
+                    throw e;
+                }
+                return "slow";
+            }
+            return "hedge";
+        };
+        
+        long start = System.nanoTime();
+        assertEquals("hedge", processor.processHedged(task, "hedged", Duration.ofMillis(50), 2).get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(slowInterrupted.await(2, TimeUnit.SECONDS), "Проигравшая попытка должна быть прервана");
+        assertEquals(1, processor.getHedgeCount());
+        
+        // Быстрая задача не дублируется
+        assertEquals("ok", processor.processHedged(() -> "ok", Duration.ofMillis(200), 2).get());
+        assertEquals(1, processor.getHedgeCount());
+        
+        // Нулевой бюджет: дубликатов нет, ждем первую попытку
+        processor.setHedgeBudget(0.0);
+        attempts.set(0);
+        Callable<String> slowOnce = () -> {
+            attempts.incrementAndGet();
+            Thread.sleep(300);
+            return "done";
+        };
+        assertEquals("done", processor.processHedged(slowOnce, Duration.ofMillis(20), 3).get());
+        assertEquals(1, attempts.get());
+        assertEquals(1, processor.getHedgeCount());
+        
+        // Если все попытки упали, возвращается ошибка
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> processor.processHedged(() -> {
+                throw new IllegalStateException("Ошибка");
+            }, Duration.ofMillis(20), 2).get());
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        
+        assertTrue(processor.shutdownGracefully(5, TimeUnit.SECONDS));
+        // Время прерванной проигравшей попытки не попадает в статистику тега
+        assertEquals(1, processor.getMetrics().tags().get("hedged").completed());
+    }
+
+    /**
+     * Тест проверяет TimingWheelScheduler: задачи срабатывают не раньше
+     * заданной задержки (в том числе после переноса с верхних уровней колеса),
+     * отмененные задачи не выполняются, а сработавшие - передаются на рабочий пул.
+     */
+    @Test
+    @Timeout(10)
+    void testTimingWheelScheduler() throws Exception {
+        TaskProcessor workers = new TaskProcessor(4);
+        try (TimingWheelScheduler scheduler = new TimingWheelScheduler(Duration.ofMillis(1), workers)) {
+            // Почти все таймауты отменяются
+            int timers = 10_000;
+            AtomicInteger fired = new AtomicInteger(0);
+            CountDownLatch allFired = new CountDownLatch(timers / 10);
+            Set<String> threadNames = ConcurrentHashMap.newKeySet();
+            List<TimingWheelScheduler.Timeout> timeouts = new ArrayList<>();
+            for (int i = 0; i < timers; i++) {
+                timeouts.add(scheduler.schedule(() -> {
+                    threadNames.add(Thread.currentThread().getName());
+                    fired.incrementAndGet();
+                    allFired.countDown();
+                }, Duration.ofMillis(500)));
+            }
+            for (int i = 0; i < timers; i++) {
+                if (i % 10 != 0) {
+                    assertTrue(timeouts.get(i).cancel());
+                }
+            }
+            assertTrue(allFired.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(timers / 10, fired.get(), "Отмененные задачи не должны выполняться");
+            assertFalse(threadNames.contains("timing-wheel"), "Задачи должны выполняться на рабочем пуле");
+            assertTrue(timeouts.get(0).isExpired());
+            assertFalse(timeouts.get(1).cancel(), "Повторная отмена должна возвращать false");
+            
+            // Периодическая задача прекращается после отмены
+            AtomicInteger runs = new AtomicInteger(0);
+            CountDownLatch fiveRuns = new CountDownLatch(5);
+            TimingWheelScheduler.Timeout periodic = scheduler.scheduleAtFixedRate(() -> {
+                runs.incrementAndGet();
+                fiveRuns.countDown();
+            }, Duration.ZERO, Duration.ofMillis(10));
+            assertTrue(fiveRuns.await(5, TimeUnit.SECONDS));
+            assertTrue(periodic.cancel());
+            Thread.sleep(50);
+            int afterCancel = runs.get();
+            Thread.sleep(100);
+            assertEquals(afterCancel, runs.get(), "Отмененная периодическая задача не должна запускаться");
+            
+            // Исключение задачи доходит до обработчика рабочего потока
+            AtomicReference<Throwable> reported = new AtomicReference<>();
+            CountDownLatch failureReported = new CountDownLatch(1);
+            Thread.UncaughtExceptionHandler capture = (thread, error) -> {
+                reported.set(error);
+                failureReported.countDown();
+            };
+            scheduler.schedule(() -> {
+                Thread.currentThread().setUncaughtExceptionHandler(capture);
+                throw new IllegalStateException("Ошибка в таймере");
+            }, Duration.ofMillis(5));
+            assertTrue(failureReported.await(5, TimeUnit.SECONDS), "Ошибка задачи не должна теряться");
+            assertInstanceOf(IllegalStateException.class, reported.get());
+        }
+        assertTrue(workers.shutdownGracefully(5, TimeUnit.SECONDS));
+        
+        // Маленькое колесо (4 корзины): задержки до 300 тиков проходят через несколько уровней
+        try (TimingWheelScheduler scheduler = new TimingWheelScheduler(Duration.ofMillis(1), 4, Runnable::run)) {
+            int count = 60;
+            CountDownLatch done = new CountDownLatch(count);
+            List<Long> early = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < count; i++) {
+                long delayMillis = i * 5L;
+                long scheduledAt = System.nanoTime();
+                scheduler.schedule(() -> {
+                    if (System.nanoTime() - scheduledAt < TimeUnit.MILLISECONDS.toNanos(delayMillis)) {
+                        early.add(delayMillis);
+                    }
+                    done.countDown();
+                }, Duration.ofMillis(delayMillis));
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS), "Все задачи должны сработать");
+            assertTrue(early.isEmpty(), "Задачи не должны срабатывать раньше срока: " + early);
+        }
+        
+        // Задача, которую не принял пул, и задача, не дождавшаяся close(), не теряются молча
+        TimingWheelScheduler.Timeout rejected;
+        TimingWheelScheduler.Timeout unfired;
+        try (TimingWheelScheduler scheduler = new TimingWheelScheduler(Duration.ofMillis(1), workers)) {
+            rejected = scheduler.schedule(() -> { }, Duration.ofMillis(5));
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> rejected.future().get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, error.getCause());
+            assertFalse(rejected.isExpired());
+            unfired = scheduler.schedule(() -> { }, Duration.ofHours(1));
+        }
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> unfired.future().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+
+    /**
+     * Тест проверяет WorkStealingExecutor и бэкенд WORK_STEALING в TaskProcessor.
+     * Дека Chase-Lev должна отдавать каждый элемент ровно один раз при
+     * одновременных pop() владельца и steal() воров. На fan-out нагрузке
+     * (задачи порождают подзадачи) время сравнивается с ThreadPoolExecutor
+     * и ForkJoinPool и публикуется в отчет теста.
+     */
+    @Test
+    @Timeout(30)
+    void testWorkStealingBackend(TestReporter reporter) throws Exception {
+        WorkStealingExecutor.ChaseLevDeque deque = new WorkStealingExecutor.ChaseLevDeque();
+        int items = 100_000;
+        AtomicInteger[] taken = new AtomicInteger[items];
+        AtomicBoolean ownerDone = new AtomicBoolean(false);
+        List<Thread> thieves = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            taken[i] = new AtomicInteger(0);
+        }
+        for (int t = 0; t < 3; t++) {
+            Thread thief = new Thread(() -> {
+                while (!ownerDone.get() || deque.size() > 0) {
+                    Runnable task = deque.steal();
+                    if (task != null) {
+                        task.run();
+                    }
+                }
+            });
+            thieves.add(thief);
+            thief.start();
+        }
+        for (int i = 0; i < items; i++) {
+            final int item = i;
+            deque.push(() -> taken[item].incrementAndGet());
+            if (i % 3 == 0) {
+                Runnable task = deque.pop();
+                if (task != null) {
+                    task.run();
+                }
+            }
+        }
+        Runnable rest;
+        while ((rest = deque.pop()) != null) {
+            rest.run();
+        }
+        ownerDone.set(true);
+        for (Thread thief : thieves) {
+            thief.join();
+        }
+        for (int i = 0; i < items; i++) {
+            assertEquals(1, taken[i].get(), "Элемент " + i + " должен быть взят ровно один раз");
+        }
+        
+        int depth = 15;
+        int tasks = (1 << (depth + 1)) - 1;
+        int threads = 4;
+        Map<String, Long> timings = new LinkedHashMap<>();
+        for (TaskProcessor.Backend backend : TaskProcessor.Backend.values()) {
+            TaskProcessor processor = new TaskProcessor(threads, backend);
+            Consumer<Runnable> submit = task -> processor.processTask(Executors.callable(task));
+            runFanOut(submit, depth, tasks);
+            timings.put(backend.name(), runFanOut(submit, depth, tasks));
+            assertTrue(processor.shutdownGracefully(5, TimeUnit.SECONDS));
+            assertEquals(2L * tasks, processor.getMetrics().completedTasks(),
+                "Метрики должны работать на любом бэкенде");
+        }
+        ForkJoinPool forkJoinPool = new ForkJoinPool(threads);
+        runFanOut(forkJoinPool::execute, depth, tasks);
+        timings.put("FORK_JOIN_POOL", runFanOut(forkJoinPool::execute, depth, tasks));
+        forkJoinPool.shutdown();
+        
+        timings.forEach((name, nanos) ->
+            reporter.publishEntry("fan-out " + tasks + " задач, " + name + ", мс",
+                String.valueOf(TimeUnit.NANOSECONDS.toMillis(nanos))));
+    }
+    
+    /**
+     * Запускает дерево задач: каждая задача, кроме листьев, отправляет две
+     * подзадачи через submit. Возвращает время до завершения всех задач.
+     */
+    private static long runFanOut(Consumer<Runnable> submit, int depth, int tasks) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        long start = System.nanoTime();
+        submitFanOut(submit, depth, done);
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Все задачи fan-out должны выполниться");
+        return System.nanoTime() - start;
+    }
+    
+    private static void submitFanOut(Consumer<Runnable> submit, int depth, CountDownLatch done) {
+        submit.accept(() -> {
+            if (depth > 0) {
+                submitFanOut(submit, depth - 1, done);
+                submitFanOut(submit, depth - 1, done);
+            }
+            done.countDown();
+        });
+    }
+
+    /**
+     * Тест проверяет EventLoopExecutor: цепочка колбэков остается в одном цикле,
+     * задачи одного ключа выполняются одним потоком в порядке отправки,
+     * а задачи от многих производителей не теряются.
+     */
+    @Test
+    @Timeout(10)
+    void testEventLoopExecutor() throws Exception {
+        EventLoopExecutor executor = new EventLoopExecutor(4);
+        
+        // Цепочка из 1000 колбэков CompletableFuture, привязанная к циклу
+        EventLoopExecutor.EventLoop loop = executor.next();
+        Set<String> chainThreads = ConcurrentHashMap.newKeySet();
+        CompletableFuture<Integer> chain = CompletableFuture.supplyAsync(() -> 0, loop);
+        for (int i = 0; i < 1000; i++) {
+            chain = chain.thenApplyAsync(value -> {
+                chainThreads.add(Thread.currentThread().getName());
+                return value + 1;
+            }, loop);
+        }
+        assertEquals(1000, chain.get(5, TimeUnit.SECONDS));
+        assertEquals(1, chainThreads.size(), "Цепочка колбэков должна оставаться в одном цикле");
+        
+        // Задача, отправленная через executor из потока цикла, остается в этом цикле
+        Set<String> nestedThreads = ConcurrentHashMap.newKeySet();
+        CountDownLatch nestedDone = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            private int remaining = 1000;
+            
+            @Override
+            public void run() {
+                nestedThreads.add(Thread.currentThread().getName());
+                if (--remaining > 0) {
+                    executor.execute(this);
+                } else {
+                    nestedDone.countDown();
+                }
+            }
+        });
+        assertTrue(nestedDone.await(5, TimeUnit.SECONDS));
+        assertEquals(1, nestedThreads.size());
+        
+        // 8 производителей, 16 ключей: порядок внутри ключа сохраняется
+        int producers = 8;
+        int tasksPerProducer = 20_000;
+        int keys = 16;
+        int[][] lastSeen = new int[producers][keys];
+        for (int[] row : lastSeen) {
+            Arrays.fill(row, -1);
+        }
+        AtomicInteger outOfOrder = new AtomicInteger(0);
+        CountDownLatch done = new CountDownLatch(producers * tasksPerProducer);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    final int sequence = i;
+                    final int key = i % keys;
+                    executor.loopFor(key).execute(() -> {
+                        // Массив без синхронизации: все задачи ключа выполняет один поток
+                        if (lastSeen[producer][key] >= sequence) {
+                            outOfOrder.incrementAndGet();
+                        }
+                        lastSeen[producer][key] = sequence;
+                        done.countDown();
+                    });
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Все задачи должны выполниться");
+        assertEquals(0, outOfOrder.get(), "Задачи одного ключа должны выполняться по порядку");
+        
+        // Ошибка в задаче не останавливает цикл
+        CountDownLatch afterError = new CountDownLatch(1);
+        Thread.UncaughtExceptionHandler silent = (thread, error) -> { };
+        loop.execute(() -> Thread.currentThread().setUncaughtExceptionHandler(silent));
+        loop.execute(() -> {
+            throw new IllegalStateException("Ошибка в задаче");
+        });
+        loop.execute(afterError::countDown);
+        assertTrue(afterError.await(5, TimeUnit.SECONDS));
+        
+        executor.close();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        
+        // close() во время отправки: каждая задача либо выполняется, либо отклоняется
+        for (int round = 0; round < 20; round++) {
+            EventLoopExecutor closing = new EventLoopExecutor(2);
+            AtomicInteger accepted = new AtomicInteger(0);
+            AtomicInteger executed = new AtomicInteger(0);
+            List<Thread> senders = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread sender = new Thread(() -> {
+                    try {
+                        for (;;) {
+                            closing.execute(executed::incrementAndGet);
+                            accepted.incrementAndGet();
+                        }
+                    } catch (RejectedExecutionException e) {
+                        // Исполнитель закрыт
+                    }
+                });
+                senders.add(sender);
+                sender.start();
+            }
+            Thread.sleep(2);
+            closing.close();
+            for (Thread sender : senders) {
+                sender.join();
+            }
+            assertTrue(closing.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(accepted.get(), executed.get(), "Принятая задача не должна теряться при close()");
+        }
+    }
+
+    /**
+     * Тест проверяет KeyedTaskProcessor: задачи одного ключа выполняются
+     * по порядку и не пересекаются, разные ключи обрабатываются параллельно.
+     */
+    @Test
+    @Timeout(10)
+    void testKeyedTaskProcessor() throws Exception {
+        KeyedTaskProcessor<Integer> processor = new KeyedTaskProcessor<>(4);
+        int keys = 8;
+        int tasksPerKey = 1000;
+        List<List<Integer>> seen = new ArrayList<>();
+        List<AtomicInteger> running = new ArrayList<>();
+        for (int key = 0; key < keys; key++) {
+            seen.add(new ArrayList<>());
+            running.add(new AtomicInteger(0));
+        }
+        AtomicInteger concurrent = new AtomicInteger(0);
+        AtomicInteger maxConcurrent = new AtomicInteger(0);
+        List<Future<Void>> futures = new ArrayList<>();
+        
+        for (int i = 0; i < tasksPerKey; i++) {
+            for (int key = 0; key < keys; key++) {
+                final int k = key;
+                final int sequence = i;
+                futures.add(processor.processTask(k, () -> {
+                    assertEquals(1, running.get(k).incrementAndGet(), "Задачи одного ключа не должны пересекаться");
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    // ArrayList без синхронизации: lane сама обеспечивает happens-before между задачами ключа
+                    seen.get(k).add(sequence);
+                    LockSupport.parkNanos(10_000);
+                    concurrent.decrementAndGet();
+                    running.get(k).decrementAndGet();
+                    return null;
+                }));
+            }
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+        
+        for (int key = 0; key < keys; key++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < tasksPerKey; i++) {
+                expected.add(i);
+            }
+            assertEquals(expected, seen.get(key), "Задачи ключа должны выполняться в порядке поступления");
+        }
+        assertTrue(maxConcurrent.get() > 1, "Разные ключи должны обрабатываться параллельно");
+        
+        // Опустевшие lane удаляются
+        while (processor.getActiveKeyCount() > 0) {
+            Thread.sleep(1);
+        }
+        assertTrue(processor.shutdownGracefully(5, TimeUnit.SECONDS));
+        
+        // Завершение не теряет задачи ключа, у которого их больше одной пачки
+        KeyedTaskProcessor<String> draining = new KeyedTaskProcessor<>(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<Future<Integer>> queued = new ArrayList<>();
+        queued.add(draining.processTask("key", () -> {
+            firstStarted.countDown();
+            releaseFirst.await();
+            return 0;
+        }));
+        for (int i = 1; i <= 100; i++) {
+            final int value = i;
+            queued.add(draining.processTask("key", () -> value));
+        }
+        firstStarted.await();
+        Thread releaser = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            releaseFirst.countDown();
+        });
+        releaser.start();
+        assertTrue(draining.shutdownGracefully(5, TimeUnit.SECONDS));
+        for (int i = 0; i < queued.size(); i++) {
+            assertFalse(queued.get(i).isCancelled(), "Задача " + i + " не должна быть отменена");
+            assertEquals(i, queued.get(i).get(), "Задача " + i + " должна завершиться нормально");
+        }
+        assertThrows(RejectedExecutionException.class, () -> draining.processTask("key", () -> -1),
+            "После завершения новые задачи отклоняются");
+        releaser.join();
+    }
+
     /**
      * Тест проверяет корректное завершение ExecutorService.
      * TaskProcessor должен дождаться завершения всех задач перед завершением.
@@ -169,5 +1043,135 @@ class ExecutorServiceTest {
         future.cancel(true);
         processor.shutdownGracefully(1, TimeUnit.SECONDS);
     }
-}
 
+    /**
+     * Тест проверяет ограниченную очередь TaskProcessor и политики отказа.
+     * Задача, не поместившаяся в очередь, обрабатывается выбранной политикой.
+     */
+    @Test
+    @Timeout(10)
+    void testBoundedQueueRejectionPolicies() throws Exception {
+        // failFast: лишняя задача отклоняется сразу
+        TaskProcessor failFast = new TaskProcessor(1, 2, RejectionPolicy.failFast());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        failFast.processTask(() -> {
+            started.countDown();
+            release.await();
+            return 0;
+        });
+        started.await();
+        failFast.processTask(() -> 1);
+        failFast.processTask(() -> 2);
+        assertEquals(2, failFast.getQueueDepth(), "В очереди должно быть 2 задачи");
+        assertThrows(RejectedExecutionException.class, () -> failFast.processTask(() -> 3),
+            "Переполненная очередь должна отклонять задачу");
+        assertEquals(1, failFast.getRejectedCount());
+        release.countDown();
+        assertTrue(failFast.shutdownGracefully(5, TimeUnit.SECONDS));
+        
+        // callerRuns: лишняя задача выполняется в потоке вызывающего
+        TaskProcessor callerRuns = new TaskProcessor(1, 1, RejectionPolicy.callerRuns());
+        CountDownLatch release2 = new CountDownLatch(1);
+        CountDownLatch started2 = new CountDownLatch(1);
+        callerRuns.processTask(() -> {
+            started2.countDown();
+            release2.await();
+            return "";
+        });
+        started2.await();
+        callerRuns.processTask(() -> "queued");
+        Future<String> inCaller = callerRuns.processTask(() -> Thread.currentThread().getName(), "caller");
+        assertEquals(Thread.currentThread().getName(), inCaller.get(),
+            "Задача должна выполниться в потоке вызывающего");
+        assertEquals(1, callerRuns.getMetrics().tags().get("caller").completed(),
+            "Задача в потоке вызывающего должна попасть в метрики");
+        Future<String> late = callerRuns.processTask(() -> "late", Duration.ZERO);
+        assertTrue(late.isCancelled(), "Просроченная задача не должна выполняться и в потоке вызывающего");
+        assertEquals(0, callerRuns.getRejectedCount(), "Выполненная задача не считается потерянной");
+        release2.countDown();
+        assertTrue(callerRuns.shutdownGracefully(5, TimeUnit.SECONDS));
+        
+        // dropOldest: самая старая задача в очереди отменяется
+        TaskProcessor dropOldest = new TaskProcessor(1, 1, RejectionPolicy.dropOldest());
+        CountDownLatch release3 = new CountDownLatch(1);
+        CountDownLatch started3 = new CountDownLatch(1);
+        dropOldest.processTask(() -> {
+            started3.countDown();
+            release3.await();
+            return 0;
+        });
+        started3.await();
+        Future<Integer> oldest = dropOldest.processTask(() -> 1);
+        Future<Integer> newest = dropOldest.processTask(() -> 2);
+        assertTrue(oldest.isCancelled(), "Самая старая задача должна быть отменена");
+        assertEquals(1, dropOldest.getRejectedCount(), "Считается только вытесненная задача");
+        release3.countDown();
+        assertEquals(2, newest.get(1, TimeUnit.SECONDS));
+        assertTrue(dropOldest.shutdownGracefully(5, TimeUnit.SECONDS));
+        
+        // blockWithTimeout: вызывающий ждет места в очереди, но не дольше тайм-аута
+        TaskProcessor blocking = new TaskProcessor(1, 1,
+            RejectionPolicy.blockWithTimeout(Duration.ofMillis(200)));
+        CountDownLatch release4 = new CountDownLatch(1);
+        CountDownLatch started4 = new CountDownLatch(1);
+        blocking.processTask(() -> {
+            started4.countDown();
+            release4.await();
+            return 0;
+        });
+        started4.await();
+        blocking.processTask(() -> 1);
+        long start = System.nanoTime();
+        assertThrows(RejectedExecutionException.class, () -> blocking.processTask(() -> 2));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150),
+            "Вызывающий должен подождать место в очереди");
+        assertEquals(1, blocking.getRejectedCount());
+        release4.countDown();
+        assertTrue(blocking.shutdownGracefully(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Тест проверяет режим EARLIEST_DEADLINE_FIRST.
+     * Задачи должны выполняться в порядке дедлайнов, а просроченные - отменяться до запуска.
+     */
+    @Test
+    @Timeout(10)
+    void testEarliestDeadlineFirst() throws Exception {
+        TaskProcessor processor = new TaskProcessor(1, TaskProcessor.SchedulingMode.EARLIEST_DEADLINE_FIRST);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        processor.processTask(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        
+        Future<String> late = processor.processTask(() -> add(order, "late"), Duration.ofSeconds(5));
+        Future<String> noDeadline = processor.processTask(() -> add(order, "none"));
+        Future<String> urgent = processor.processTask(() -> add(order, "urgent"), Duration.ofSeconds(1));
+        Future<String> doomed = processor.processTask(() -> add(order, "doomed"), Duration.ofMillis(50));
+        Future<String> medium = processor.processTask(() -> add(order, "medium"), Duration.ofSeconds(3));
+        
+        Thread.sleep(200);
+        release.countDown();
+        
+        assertEquals("urgent", urgent.get(1, TimeUnit.SECONDS));
+        assertEquals("medium", medium.get(1, TimeUnit.SECONDS));
+        assertEquals("late", late.get(1, TimeUnit.SECONDS));
+        assertEquals("none", noDeadline.get(1, TimeUnit.SECONDS));
+        assertTrue(doomed.isCancelled(), "Просроченная задача должна быть отменена");
+        assertEquals(List.of("urgent", "medium", "late", "none"), order,
+            "Задачи должны выполняться в порядке дедлайнов");
+        assertEquals(1, processor.getExpiredCount());
+        
+        assertTrue(processor.shutdownGracefully(5, TimeUnit.SECONDS));
+    }
+
+    private static String add(List<String> order, String name) {
+        order.add(name);
+        return name;
+    }
+}
@@ -4,12 +4,14 @@ import java.util.concurrent.RecursiveTask;
 
 /**
  * Задача для поиска максимального элемента в массиве с использованием ForkJoinPool.
+ *
+ * Деление на подзадачи выполняет ParallelReducer: частичные максимумы хранятся
+ * в примитивных полях, и результат упаковывается в Integer один раз, в конце.
  */
 public class MaxTask extends RecursiveTask<Integer> {
     private final int[] array;
     private final int start;
     private final int end;
-    private static final int THRESHOLD = 100;
     
     public MaxTask(int[] array, int start, int end) {
         this.array = array;
@@ -19,24 +21,6 @@ public class MaxTask extends RecursiveTask<Integer> {
     
     @Override
     protected Integer compute() {
-        int length = end - start;
-        if (length <= THRESHOLD) {
-            int max = array[start];
-            for (int i = start + 1; i < end; i++) {
-                if (array[i] > max) {
-                    max = array[i];
-                }
-            }
-            return max;
-        } else {
-            int mid = start + length / 2;
-            MaxTask left = new MaxTask(array, start, mid);
-            MaxTask right = new MaxTask(array, mid, end);
-            left.fork();
-            int rightResult = right.compute();
-            int leftResult = left.join();
-            return Math.max(leftResult, rightResult);
-        }
+        return ParallelReducer.reduce(array, start, end, Integer.MIN_VALUE, Math::max);
     }
 }
-
@@ -0,0 +1,231 @@
+package com.multithreading.practice;
+
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Параллельная свертка примитивных массивов на CountedCompleter.
+ *
+ * RecursiveTask&lt;Long&gt; на каждом разбиении создает задачу и упаковывает
+ * результат в объект, а join() ждет подзадачу. Здесь:
+ * - частичный результат хранится в примитивном поле задачи, упаковки нет;
+ * - задача не ждет подзадачи: счетчик ожидающих подзадач CountedCompleter
+ *   уменьшается по мере их завершения, и последняя завершившаяся подзадача
+ *   сворачивает результаты вверх по дереву;
+ * - лист обрабатывает крупный диапазон (не меньше MIN_LEAF_SIZE элементов),
+ *   поэтому задач немного и скорость ограничена пропускной способностью памяти.
+ *
+ * combiner должен быть ассоциативным, а identity - его нейтральным элементом
+ * (0 для суммы, MIN_VALUE для максимума): части объединяются слева направо,
+ * но группировка зависит от разбиения. Перестановочность не требуется.
+ */
+public final class ParallelReducer {
+    /** Короче этого диапазон не делим: шаг свертки дешев, и создание задачи обошлось бы дороже листа. */
+    private static final int MIN_LEAF_SIZE = 1 << 13;
+    /** Листьев на поток пула несколько, чтобы освободившиеся потоки могли украсть работу у отстающих. */
+    private static final int LEAVES_PER_THREAD = 8;
+
+    private ParallelReducer() {
+    }
+
+    public static int reduce(int[] array, int identity, IntBinaryOperator combiner) {
+        return reduce(array, 0, array.length, identity, combiner);
+    }
+
+    /**
+     * Сворачивает элементы array[from, to).
+     *
+     * @return identity, если диапазон пуст
+     */
+    public static int reduce(int[] array, int from, int to, int identity, IntBinaryOperator combiner) {
+        checkRange(array.length, from, to);
+        IntReducer root = new IntReducer(null, array, from, to, leafSize(to - from), identity, combiner, null);
+        root.invoke();
+        return root.result;
+    }
+
+    public static long reduce(long[] array, long identity, LongBinaryOperator combiner) {
+        return reduce(array, 0, array.length, identity, combiner);
+    }
+
+    public static long reduce(long[] array, int from, int to, long identity, LongBinaryOperator combiner) {
+        checkRange(array.length, from, to);
+        LongReducer root = new LongReducer(null, array, from, to, leafSize(to - from), identity, combiner, null);
+        root.invoke();
+        return root.result;
+    }
+
+    public static double reduce(double[] array, double identity, DoubleBinaryOperator combiner) {
+        return reduce(array, 0, array.length, identity, combiner);
+    }
+
+    public static double reduce(double[] array, int from, int to, double identity, DoubleBinaryOperator combiner) {
+        checkRange(array.length, from, to);
+        DoubleReducer root = new DoubleReducer(null, array, from, to, leafSize(to - from), identity, combiner, null);
+        root.invoke();
+        return root.result;
+    }
+
+    private static int leafSize(int length) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(MIN_LEAF_SIZE, length / (parallelism * LEAVES_PER_THREAD));
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Диапазон [" + from + ", " + to + ") вне массива длины " + length);
+        }
+    }
+
+    /*
+     * Три класса ниже отличаются только типом элемента. Схема одна:
+     * compute() отщепляет правые половины в подзадачи (список forks), пока
+     * диапазон больше листа, сворачивает оставшуюся левую часть и идет вверх
+     * по firstComplete()/nextComplete(). Задача, у которой завершились все
+     * подзадачи, добавляет их результаты к своему.
+     */
+
+    private static final class IntReducer extends CountedCompleter<Void> {
+        private final int[] array;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final int identity;
+        private final IntBinaryOperator combiner;
+        private final IntReducer next;
+        private IntReducer forks;
+        private int result;
+
+        IntReducer(CountedCompleter<?> parent, int[] array, int from, int to, int leafSize,
+                   int identity, IntBinaryOperator combiner, IntReducer next) {
+            super(parent);
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.identity = identity;
+            this.combiner = combiner;
+            this.next = next;
+        }
+
+        @Override
+        public void compute() {
+            int high = to;
+            while (high - from > leafSize) {
+                int mid = (from + high) >>> 1;
+                addToPendingCount(1);
+                forks = new IntReducer(this, array, mid, high, leafSize, identity, combiner, forks);
+                forks.fork();
+                high = mid;
+            }
+            int value = identity;
+            for (int i = from; i < high; i++) {
+                value = combiner.applyAsInt(value, array[i]);
+            }
+            result = value;
+            for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                IntReducer task = (IntReducer) c;
+                for (IntReducer fork = task.forks; fork != null; fork = task.forks = fork.next) {
+                    task.result = combiner.applyAsInt(task.result, fork.result);
+                }
+            }
+        }
+    }
+
+    private static final class LongReducer extends CountedCompleter<Void> {
+        private final long[] array;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final long identity;
+        private final LongBinaryOperator combiner;
+        private final LongReducer next;
+        private LongReducer forks;
+        private long result;
+
+        LongReducer(CountedCompleter<?> parent, long[] array, int from, int to, int leafSize,
+                    long identity, LongBinaryOperator combiner, LongReducer next) {
+            super(parent);
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.identity = identity;
+            this.combiner = combiner;
+            this.next = next;
+        }
+
+        @Override
+        public void compute() {
+            int high = to;
+            while (high - from > leafSize) {
+                int mid = (from + high) >>> 1;
+                addToPendingCount(1);
+                forks = new LongReducer(this, array, mid, high, leafSize, identity, combiner, forks);
+                forks.fork();
+                high = mid;
+            }
+            long value = identity;
+            for (int i = from; i < high; i++) {
+                value = combiner.applyAsLong(value, array[i]);
+            }
+            result = value;
+            for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                LongReducer task = (LongReducer) c;
+                for (LongReducer fork = task.forks; fork != null; fork = task.forks = fork.next) {
+                    task.result = combiner.applyAsLong(task.result, fork.result);
+                }
+            }
+        }
+    }
+
+    private static final class DoubleReducer extends CountedCompleter<Void> {
+        private final double[] array;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final double identity;
+        private final DoubleBinaryOperator combiner;
+        private final DoubleReducer next;
+        private DoubleReducer forks;
+        private double result;
+
+        DoubleReducer(CountedCompleter<?> parent, double[] array, int from, int to, int leafSize,
+                      double identity, DoubleBinaryOperator combiner, DoubleReducer next) {
+            super(parent);
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.identity = identity;
+            this.combiner = combiner;
+            this.next = next;
+        }
+
+        @Override
+        public void compute() {
+            int high = to;
+            while (high - from > leafSize) {
+                int mid = (from + high) >>> 1;
+                addToPendingCount(1);
+                forks = new DoubleReducer(this, array, mid, high, leafSize, identity, combiner, forks);
+                forks.fork();
+                high = mid;
+            }
+            double value = identity;
+            for (int i = from; i < high; i++) {
+                value = combiner.applyAsDouble(value, array[i]);
+            }
+            result = value;
+            for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                DoubleReducer task = (DoubleReducer) c;
+                for (DoubleReducer fork = task.forks; fork != null; fork = task.forks = fork.next) {
+                    task.result = combiner.applyAsDouble(task.result, fork.result);
+                }
+            }
+        }
+    }
+}
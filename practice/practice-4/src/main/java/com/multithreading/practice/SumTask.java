@@ -4,12 +4,14 @@ import java.util.concurrent.RecursiveTask;
 
 /**
  * Задача для суммирования элементов массива с использованием ForkJoinPool.
+ *
+ * Деление на подзадачи выполняет ParallelReducer: частичные суммы хранятся
+ * в примитивных полях, и результат упаковывается в Long один раз, в конце.
  */
 public class SumTask extends RecursiveTask<Long> {
     private final long[] array;
     private final int start;
     private final int end;
-    private static final int THRESHOLD = 100;
     
     public SumTask(long[] array, int start, int end) {
         this.array = array;
@@ -19,22 +21,6 @@ public class SumTask extends RecursiveTask<Long> {
     
     @Override
     protected Long compute() {
-        int length = end - start;
-        if (length <= THRESHOLD) {
-            long sum = 0;
-            for (int i = start; i < end; i++) {
-                sum += array[i];
-            }
-            return sum;
-        } else {
-            int mid = start + length / 2;
-            SumTask left = new SumTask(array, start, mid);
-            SumTask right = new SumTask(array, mid, end);
-            left.fork();
-            long rightResult = right.compute();
-            long leftResult = left.join();
-            return leftResult + rightResult;
-        }
+        return ParallelReducer.reduce(array, start, end, 0L, Long::sum);
     }
 }
-
@@ -17,6 +17,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * 2. Реализуйте MaxTask, который находит максимальный элемент в массиве
  * 3. Используйте правильный порог (threshold) для разделения задач
  * 4. Правильно используйте fork() и join()
+ * 5. Реализуйте ParallelReducer на CountedCompleter для int[], long[] и double[] без упаковки
  */
 class ForkJoinPoolTest {
 
@@ -103,5 +104,53 @@ class ForkJoinPoolTest {
         pool.shutdown();
         assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
     }
-}
 
+    /**
+     * Тест проверяет ParallelReducer: свертка int[], long[] и double[] с
+     * примитивными identity и combiner должна совпадать с последовательной,
+     * в том числе для поддиапазона и пустого диапазона.
+     */
+    @Test
+    @Timeout(10)
+    void testParallelReducer() {
+        int size = 5_000_000;
+        int[] ints = new int[size];
+        long[] longs = new long[size];
+        double[] doubles = new double[size];
+        long expectedSum = 0;
+        int expectedMax = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            ints[i] = (int) (Math.random() * 1_000_000) - 500_000;
+            longs[i] = ints[i];
+            doubles[i] = ints[i] / 2.0;
+            expectedSum += ints[i];
+            expectedMax = Math.max(expectedMax, ints[i]);
+        }
+        
+        assertEquals(expectedSum, ParallelReducer.reduce(longs, 0L, Long::sum));
+        assertEquals(expectedMax, ParallelReducer.reduce(ints, Integer.MIN_VALUE, Math::max));
+        assertEquals(expectedMax / 2.0, ParallelReducer.reduce(doubles, Double.NEGATIVE_INFINITY, Math::max));
+        // Половины целых суммируются в double точно, порядок сложения не важен
+        assertEquals(expectedSum / 2.0, ParallelReducer.reduce(doubles, 0.0, Double::sum));
+        
+        long subrangeSum = 0;
+        for (int i = 1000; i < 3_000_000; i++) {
+            subrangeSum += longs[i];
+        }
+        assertEquals(subrangeSum, ParallelReducer.reduce(longs, 1000, 3_000_000, 0L, Long::sum));
+        assertEquals(Integer.MIN_VALUE, ParallelReducer.reduce(ints, 10, 10, Integer.MIN_VALUE, Math::max),
+            "Для пустого диапазона должен возвращаться identity");
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> ParallelReducer.reduce(ints, 0, size + 1, 0, Integer::sum));
+        
+        // Порядок частей сохраняется: "первый" и "последний" ассоциативны, но не перестановочны
+        int[] digits = new int[100_000];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = i % 10;
+        }
+        digits[0] = 7;
+        digits[digits.length - 1] = 3;
+        assertEquals(3, ParallelReducer.reduce(digits, -1, (left, right) -> right == -1 ? left : right));
+        assertEquals(7, ParallelReducer.reduce(digits, -1, (left, right) -> left == -1 ? right : left));
+    }
+}